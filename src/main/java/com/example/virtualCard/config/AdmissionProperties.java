@@ -0,0 +1,44 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds on card write operations admitted into CardService, per card and in total. Each
+ * in-flight limit starts at its maximum and shrinks while admitted operations wait too long,
+ * growing back once waits drop: per card, longer than target-lock-wait on the card row lock;
+ * in total, longer than target-connection-wait for a pooled connection.
+ */
+@ConfigurationProperties(prefix = "virtualcard.admission")
+public class AdmissionProperties {
+
+    private boolean enabled;
+    private int perCardMaxInFlight = 2;
+    private int perCardMaxQueued = 4;
+    private int globalMaxInFlight = 8;
+    private int globalMaxQueued = 64;
+    private Duration maxQueueWait = Duration.ofMillis(100);
+    private Duration targetLockWait = Duration.ofMillis(20);
+    private Duration targetConnectionWait = Duration.ofMillis(5);
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getPerCardMaxInFlight() { return perCardMaxInFlight; }
+    public void setPerCardMaxInFlight(int perCardMaxInFlight) { this.perCardMaxInFlight = perCardMaxInFlight; }
+    public int getPerCardMaxQueued() { return perCardMaxQueued; }
+    public void setPerCardMaxQueued(int perCardMaxQueued) { this.perCardMaxQueued = perCardMaxQueued; }
+    public int getGlobalMaxInFlight() { return globalMaxInFlight; }
+    public void setGlobalMaxInFlight(int globalMaxInFlight) { this.globalMaxInFlight = globalMaxInFlight; }
+    public int getGlobalMaxQueued() { return globalMaxQueued; }
+    public void setGlobalMaxQueued(int globalMaxQueued) { this.globalMaxQueued = globalMaxQueued; }
+    public Duration getMaxQueueWait() { return maxQueueWait; }
+    public void setMaxQueueWait(Duration maxQueueWait) { this.maxQueueWait = maxQueueWait; }
+    public Duration getTargetLockWait() { return targetLockWait; }
+    public void setTargetLockWait(Duration targetLockWait) { this.targetLockWait = targetLockWait; }
+    public Duration getTargetConnectionWait() { return targetConnectionWait; }
+    public void setTargetConnectionWait(Duration targetConnectionWait) { this.targetConnectionWait = targetConnectionWait; }
+    public Duration getRetryAfter() { return retryAfter; }
+    public void setRetryAfter(Duration retryAfter) { this.retryAfter = retryAfter; }
+}
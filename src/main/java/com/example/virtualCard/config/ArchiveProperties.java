@@ -0,0 +1,29 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "virtualcard.archive")
+public class ArchiveProperties {
+
+    private boolean enabled;
+    private Duration retention = Duration.ofDays(90);
+    private Duration interval = Duration.ofMinutes(10);
+    private int batchSize = 1000;
+    private int maxBatchesPerRun = 100;
+    private boolean replayArchivedKeys = true;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Duration getRetention() { return retention; }
+    public void setRetention(Duration retention) { this.retention = retention; }
+    public Duration getInterval() { return interval; }
+    public void setInterval(Duration interval) { this.interval = interval; }
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public int getMaxBatchesPerRun() { return maxBatchesPerRun; }
+    public void setMaxBatchesPerRun(int maxBatchesPerRun) { this.maxBatchesPerRun = maxBatchesPerRun; }
+    public boolean isReplayArchivedKeys() { return replayArchivedKeys; }
+    public void setReplayArchivedKeys(boolean replayArchivedKeys) { this.replayArchivedKeys = replayArchivedKeys; }
+}
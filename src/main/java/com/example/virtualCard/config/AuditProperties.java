@@ -0,0 +1,54 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Audit events are buffered in a fixed ring of buffer-size slots (rounded up to a power of
+ * two) and appended to path in batches. When the ring is full, DROP discards the event at
+ * once; BLOCK waits up to max-block for the writer, then discards it. A file that has grown
+ * to max-file-size is rotated to path.1 and so on, keeping max-history old files; a zero
+ * max-file-size never rotates.
+ */
+@ConfigurationProperties(prefix = "virtualcard.audit")
+public class AuditProperties {
+
+    public enum Format { JSON_LINES, BINARY }
+
+    public enum OverflowPolicy { DROP, BLOCK }
+
+    private boolean enabled;
+    private Path path = Path.of("logs/audit.jsonl");
+    private Format format = Format.JSON_LINES;
+    private int bufferSize = 16384;
+    private int batchSize = 512;
+    private Duration flushInterval = Duration.ofMillis(50);
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+    private Duration maxBlock = Duration.ofMillis(5);
+    private DataSize maxFileSize = DataSize.ofMegabytes(100);
+    private int maxHistory = 10;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public Path getPath() { return path; }
+    public void setPath(Path path) { this.path = path; }
+    public Format getFormat() { return format; }
+    public void setFormat(Format format) { this.format = format; }
+    public int getBufferSize() { return bufferSize; }
+    public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+    public int getBatchSize() { return batchSize; }
+    public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+    public Duration getFlushInterval() { return flushInterval; }
+    public void setFlushInterval(Duration flushInterval) { this.flushInterval = flushInterval; }
+    public OverflowPolicy getOverflowPolicy() { return overflowPolicy; }
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) { this.overflowPolicy = overflowPolicy; }
+    public Duration getMaxBlock() { return maxBlock; }
+    public void setMaxBlock(Duration maxBlock) { this.maxBlock = maxBlock; }
+    public DataSize getMaxFileSize() { return maxFileSize; }
+    public void setMaxFileSize(DataSize maxFileSize) { this.maxFileSize = maxFileSize; }
+    public int getMaxHistory() { return maxHistory; }
+    public void setMaxHistory(int maxHistory) { this.maxHistory = maxHistory; }
+}
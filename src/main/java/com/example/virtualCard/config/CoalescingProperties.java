@@ -0,0 +1,18 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Concurrent reads of the same card wait at most max-wait for the query they joined before
+ * querying themselves.
+ */
+@ConfigurationProperties(prefix = "virtualcard.coalescing")
+public class CoalescingProperties {
+
+    private Duration maxWait = Duration.ofMillis(500);
+
+    public Duration getMaxWait() { return maxWait; }
+    public void setMaxWait(Duration maxWait) { this.maxWait = maxWait; }
+}
@@ -0,0 +1,41 @@
+package com.example.virtualCard.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Times connection checkout from the pool it wraps as the request's
+ * {@link RequestTimings.Phase#CONNECTION} phase. Wraps the pools themselves, below any lazy or
+ * routing proxy, so the time is spent waiting on the pool rather than handing out a proxy.
+ * Closing it closes the pool.
+ */
+public class ConnectionTimingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    public ConnectionTimingDataSource(DataSource pool) {
+        super(pool);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.CONNECTION)) {
+            return obtainTargetDataSource().getConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.CONNECTION)) {
+            return obtainTargetDataSource().getConnection(username, password);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable pool) {
+            pool.close();
+        }
+    }
+}
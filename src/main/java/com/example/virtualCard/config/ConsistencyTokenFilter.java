@@ -0,0 +1,32 @@
+package com.example.virtualCard.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+@Component
+public class ConsistencyTokenFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String token = request.getHeader(ReadConsistency.TOKEN_HEADER);
+        if (token != null) {
+            try {
+                ReadConsistency.require(Long.parseLong(token.trim()));
+            } catch (NumberFormatException ignored) {
+                // An unreadable token just means no read-your-writes guarantee.
+            }
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadConsistency.clear();
+        }
+    }
+}
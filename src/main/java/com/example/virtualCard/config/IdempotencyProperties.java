@@ -0,0 +1,17 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "virtualcard.idempotency")
+public class IdempotencyProperties {
+
+    private Duration ttl = Duration.ofDays(30);
+    private Duration purgeInterval = Duration.ofHours(1);
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+    public Duration getPurgeInterval() { return purgeInterval; }
+    public void setPurgeInterval(Duration purgeInterval) { this.purgeInterval = purgeInterval; }
+}
@@ -0,0 +1,21 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Card ids are drawn from a per-shard pool of id-pool-size ids, topped up every
+ * refill-interval; 0 generates every id inline.
+ */
+@ConfigurationProperties(prefix = "virtualcard.issuance")
+public class IssuanceProperties {
+
+    private int idPoolSize = 512;
+    private Duration refillInterval = Duration.ofMillis(100);
+
+    public int getIdPoolSize() { return idPoolSize; }
+    public void setIdPoolSize(int idPoolSize) { this.idPoolSize = idPoolSize; }
+    public Duration getRefillInterval() { return refillInterval; }
+    public void setRefillInterval(Duration refillInterval) { this.refillInterval = refillInterval; }
+}
@@ -0,0 +1,39 @@
+package com.example.virtualCard.config;
+
+import com.example.virtualCard.controller.CardController;
+import com.example.virtualCard.services.CardIdPool;
+import com.example.virtualCard.services.CardService;
+import com.example.virtualCard.services.IdempotencyKeyPurger;
+import com.example.virtualCard.services.IdempotencyService;
+import com.example.virtualCard.services.PooledCreditSettler;
+import com.example.virtualCard.services.SpendVelocityTracker;
+import com.example.virtualCard.services.TransactionArchiver;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that stay eager when {@code spring.main.lazy-initialization} is on (the fast-start
+ * profile): the card request path, so the first spend does not pay for building it, and the
+ * background jobs and startup steps, which nothing else would ever ask for.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                CardController.class,
+                CardService.class,
+                IdempotencyService.class,
+                ResponseJsonWriter.class,
+                RequestTimingFilter.class,
+                SpendVelocityTracker.class,
+                CardIdPool.class,
+                TransactionArchiver.class,
+                IdempotencyKeyPurger.class,
+                PooledCreditSettler.class,
+                ReplicaLagMonitor.class,
+                SchemaUpgrades.class);
+    }
+}
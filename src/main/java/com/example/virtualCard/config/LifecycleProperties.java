@@ -0,0 +1,15 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bulk status changes update at most chunk-size cards per transaction.
+ */
+@ConfigurationProperties(prefix = "virtualcard.lifecycle")
+public class LifecycleProperties {
+
+    private int chunkSize = 500;
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+}
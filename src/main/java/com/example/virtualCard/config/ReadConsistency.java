@@ -0,0 +1,26 @@
+package com.example.virtualCard.config;
+
+/**
+ * Read-your-writes requirement for the current request: the wall-clock millis of the caller's
+ * last acknowledged write, taken from the consistency token they sent back.
+ */
+public final class ReadConsistency {
+
+    public static final String TOKEN_HEADER = "X-Consistency-Token";
+
+    private static final ThreadLocal<Long> REQUIRED = new ThreadLocal<>();
+
+    private ReadConsistency() {}
+
+    public static Long requiredTimestamp() {
+        return REQUIRED.get();
+    }
+
+    public static void require(long writtenAtMillis) {
+        REQUIRED.set(writtenAtMillis);
+    }
+
+    public static void clear() {
+        REQUIRED.remove();
+    }
+}
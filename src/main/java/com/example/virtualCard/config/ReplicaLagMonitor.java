@@ -0,0 +1,52 @@
+package com.example.virtualCard.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class ReplicaLagMonitor implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final String lagQuery;
+    private final List<ReplicaRoutingDataSource> replicas = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("replica-lag-probe").daemon().factory());
+
+    public ReplicaLagMonitor(ReplicaProperties properties) {
+        this.lagQuery = properties.getLagQuery();
+        long interval = properties.getProbeInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::probeAll, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void register(ReplicaRoutingDataSource dataSource) {
+        replicas.add(dataSource);
+    }
+
+    void probeAll() {
+        for (ReplicaRoutingDataSource dataSource : replicas) {
+            long probedAt = System.currentTimeMillis();
+            try (Connection connection = dataSource.getReplica().getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                rs.next();
+                dataSource.recordLag(Math.max(0, rs.getLong(1)), probedAt);
+            } catch (Exception ex) {
+                dataSource.markUnavailable();
+                log.warn("Replica lag probe failed, routing reads to primary: {}", ex.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "virtualcard.replica")
+public class ReplicaProperties {
+
+    private boolean enabled;
+    private String url;
+    private String username;
+    private String password;
+    private Duration maxLag = Duration.ofSeconds(2);
+    private Duration probeInterval = Duration.ofMillis(500);
+    private boolean readYourWrites = true;
+    private String lagQuery = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+            + "else extract(epoch from now() - pg_last_xact_replay_timestamp()) * 1000 end";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getUrl() { return url; }
+    public void setUrl(String url) { this.url = url; }
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    public Duration getMaxLag() { return maxLag; }
+    public void setMaxLag(Duration maxLag) { this.maxLag = maxLag; }
+    public Duration getProbeInterval() { return probeInterval; }
+    public void setProbeInterval(Duration probeInterval) { this.probeInterval = probeInterval; }
+    public boolean isReadYourWrites() { return readYourWrites; }
+    public void setReadYourWrites(boolean readYourWrites) { this.readYourWrites = readYourWrites; }
+    public String getLagQuery() { return lagQuery; }
+    public void setLagQuery(String lagQuery) { this.lagQuery = lagQuery; }
+}
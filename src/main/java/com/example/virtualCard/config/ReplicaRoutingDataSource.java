@@ -0,0 +1,92 @@
+package com.example.virtualCard.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends read-only transactions to the replica unless it is lagging beyond the configured
+ * bound or has not yet caught up with the caller's own last write; everything else goes to
+ * the primary. Needs a {@code LazyConnectionDataSourceProxy} in front of it so the
+ * transaction's read-only flag is known when the connection is picked.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private final DataSource replica;
+    private final long maxLagMillis;
+    private final boolean readYourWrites;
+
+    private volatile long lagMillis = Long.MAX_VALUE;
+    private volatile long appliedThroughMillis;
+
+    private final Counter writes;
+    private final Counter replicaReads;
+    private final Counter laggingFallbacks;
+    private final Counter tokenFallbacks;
+
+    public ReplicaRoutingDataSource(String name, DataSource primary, DataSource replica, ReplicaProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.maxLagMillis = properties.getMaxLag().toMillis();
+        this.readYourWrites = properties.isReadYourWrites();
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+
+        this.writes = routeCounter(meterRegistry, name, Route.PRIMARY, "write");
+        this.replicaReads = routeCounter(meterRegistry, name, Route.REPLICA, "read");
+        this.laggingFallbacks = routeCounter(meterRegistry, name, Route.PRIMARY, "replica_lagging");
+        this.tokenFallbacks = routeCounter(meterRegistry, name, Route.PRIMARY, "read_your_writes");
+        Gauge.builder("virtualcard.datasource.replica.lag", this, ds -> ds.lagMillis == Long.MAX_VALUE ? Double.NaN : ds.lagMillis)
+                .tag("datasource", name)
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            writes.increment();
+            return Route.PRIMARY;
+        }
+        if (lagMillis > maxLagMillis) {
+            laggingFallbacks.increment();
+            return Route.PRIMARY;
+        }
+        Long required = ReadConsistency.requiredTimestamp();
+        if (readYourWrites && required != null && appliedThroughMillis < required) {
+            tokenFallbacks.increment();
+            return Route.PRIMARY;
+        }
+        replicaReads.increment();
+        return Route.REPLICA;
+    }
+
+    public DataSource getReplica() {
+        return replica;
+    }
+
+    public void recordLag(long lagMillis, long probedAtMillis) {
+        this.appliedThroughMillis = probedAtMillis - lagMillis;
+        this.lagMillis = lagMillis;
+    }
+
+    public void markUnavailable() {
+        this.lagMillis = Long.MAX_VALUE;
+    }
+
+    private static Counter routeCounter(MeterRegistry registry, String name, Route route, String reason) {
+        return Counter.builder("virtualcard.datasource.route")
+                .tag("datasource", name)
+                .tag("target", route.name().toLowerCase())
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
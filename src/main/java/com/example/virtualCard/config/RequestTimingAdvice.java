@@ -0,0 +1,35 @@
+package com.example.virtualCard.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Marks the start of response serialization and sets the {@code Server-Timing} header while
+ * headers can still be written, covering every phase up to the body. {@link RequestTimingFilter}
+ * closes the phase once the body has been written.
+ */
+@RestControllerAdvice
+public class RequestTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTimings timings = RequestTimings.startSerialization();
+        if (timings != null) {
+            response.getHeaders().set(RequestTimingFilter.SERVER_TIMING_HEADER,
+                    timings.toServerTiming(timings.totalNanos()));
+        }
+        return body;
+    }
+}
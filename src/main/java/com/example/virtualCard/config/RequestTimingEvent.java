@@ -0,0 +1,55 @@
+package com.example.virtualCard.config;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One event per card API request, spanning the whole request. Recorded only while a JFR
+ * recording has the event enabled, e.g.
+ * {@code jcmd <pid> JFR.start settings=profile +com.example.virtualCard.Request#threshold=20ms}.
+ */
+@Name("com.example.virtualCard.Request")
+@Label("Card API Request")
+@Category({"Virtual Card", "API"})
+@Description("Card API request with per-phase timings")
+@StackTrace(false)
+class RequestTimingEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    String path;
+
+    @Label("Status")
+    int status;
+
+    @Label("Admission Queue")
+    @Timespan(Timespan.NANOSECONDS)
+    long admission;
+
+    @Label("Connection Checkout")
+    @Timespan(Timespan.NANOSECONDS)
+    long connection;
+
+    @Label("Card Row Lock")
+    @Timespan(Timespan.NANOSECONDS)
+    long lock;
+
+    @Label("Idempotency")
+    @Timespan(Timespan.NANOSECONDS)
+    long idempotency;
+
+    @Label("Commit")
+    @Timespan(Timespan.NANOSECONDS)
+    long commit;
+
+    @Label("Serialization")
+    @Timespan(Timespan.NANOSECONDS)
+    long serialization;
+}
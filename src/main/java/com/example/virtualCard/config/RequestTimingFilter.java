@@ -0,0 +1,81 @@
+package com.example.virtualCard.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times card API requests by phase and reports them three ways: a {@code Server-Timing}
+ * header, a JFR event, and a sampled log line for requests over the slow threshold. The body
+ * is never buffered: the header is set by {@link RequestTimingAdvice} just before the body is
+ * written, or here for responses that were not committed, so only the JFR event and the log
+ * line see serialization of streamed responses.
+ */
+@Component
+public class RequestTimingFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+    private static final String CARD_API_PREFIX = "/api/v1/cards";
+
+    private final long slowThresholdNanos;
+    private final double slowSampleRate;
+
+    public RequestTimingFilter(TimingProperties properties) {
+        this.slowThresholdNanos = properties.getSlowThreshold().toNanos();
+        this.slowSampleRate = properties.getSlowSampleRate();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(CARD_API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimingEvent event = new RequestTimingEvent();
+        event.begin();
+        RequestTimings timings = RequestTimings.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTimings.clear();
+            timings.finish();
+            long total = timings.totalNanos();
+            if (!response.isCommitted()) {
+                response.setHeader(SERVER_TIMING_HEADER, timings.toServerTiming(total));
+            }
+            record(event, timings, request, response.getStatus());
+            if (total >= slowThresholdNanos && ThreadLocalRandom.current().nextDouble() < slowSampleRate) {
+                log.warn("Slow request {} {} status={} {}", request.getMethod(), request.getRequestURI(),
+                        response.getStatus(), timings.summary(total));
+            }
+        }
+    }
+
+    private static void record(RequestTimingEvent event, RequestTimings timings, HttpServletRequest request, int status) {
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.method = request.getMethod();
+        event.path = request.getRequestURI();
+        event.status = status;
+        event.admission = timings.nanos(RequestTimings.Phase.ADMISSION);
+        event.connection = timings.nanos(RequestTimings.Phase.CONNECTION);
+        event.lock = timings.nanos(RequestTimings.Phase.LOCK);
+        event.idempotency = timings.nanos(RequestTimings.Phase.IDEMPOTENCY);
+        event.commit = timings.nanos(RequestTimings.Phase.COMMIT);
+        event.serialization = timings.nanos(RequestTimings.Phase.SERIALIZE);
+        event.commit();
+    }
+}
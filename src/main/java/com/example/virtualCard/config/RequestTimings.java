@@ -0,0 +1,155 @@
+package com.example.virtualCard.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Phase timings for the current request. Phases accumulate, so a phase entered twice (a
+ * replay lookup followed by a reservation, say) reports its total. Outside a timed request
+ * every call is a no-op.
+ */
+public final class RequestTimings {
+
+    public enum Phase {
+        ADMISSION("queue", "Admission queue"),
+        CONNECTION("conn", "Connection checkout"),
+        LOCK("lock", "Card row lock"),
+        IDEMPOTENCY("idem", "Idempotency lookup and reservation"),
+        COMMIT("commit", "Flush and commit"),
+        SERIALIZE("ser", "Response serialization");
+
+        private final String metric;
+        private final String description;
+
+        Phase(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+    }
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final Span NO_OP = () -> {};
+
+    private final long startedAt = System.nanoTime();
+    private final long[] elapsed = new long[Phase.values().length];
+    private final long[] openedAt = new long[Phase.values().length];
+
+    private RequestTimings() {}
+
+    public static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static Span time(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return NO_OP;
+        }
+        timings.open(phase);
+        return () -> timings.close(phase);
+    }
+
+    /**
+     * Time recorded so far for the phase on this thread's request, or 0 outside a timed request.
+     */
+    public static long currentNanos(Phase phase) {
+        RequestTimings timings = CURRENT.get();
+        return timings == null ? 0 : timings.nanos(phase);
+    }
+
+    /**
+     * Times the flush and commit of the surrounding transaction, from beforeCommit until it
+     * completes.
+     */
+    public static void timeCommit() {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                timings.open(Phase.COMMIT);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                timings.close(Phase.COMMIT);
+            }
+        });
+    }
+
+    /**
+     * Opens the serialization phase and returns this thread's timings, or null outside a
+     * timed request.
+     */
+    public static RequestTimings startSerialization() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.open(Phase.SERIALIZE);
+        }
+        return timings;
+    }
+
+    public void finish() {
+        close(Phase.SERIALIZE);
+    }
+
+    public long nanos(Phase phase) {
+        return elapsed[phase.ordinal()];
+    }
+
+    public long totalNanos() {
+        return System.nanoTime() - startedAt;
+    }
+
+    public String toServerTiming(long totalNanos) {
+        StringJoiner header = new StringJoiner(", ");
+        for (Phase phase : Phase.values()) {
+            if (elapsed[phase.ordinal()] > 0) {
+                header.add(phase.metric + ";desc=\"" + phase.description + "\";dur=" + millis(elapsed[phase.ordinal()]));
+            }
+        }
+        header.add("total;dur=" + millis(totalNanos));
+        return header.toString();
+    }
+
+    public String summary(long totalNanos) {
+        StringJoiner summary = new StringJoiner(" ");
+        for (Phase phase : Phase.values()) {
+            summary.add(phase.metric + "=" + millis(elapsed[phase.ordinal()]) + "ms");
+        }
+        summary.add("total=" + millis(totalNanos) + "ms");
+        return summary.toString();
+    }
+
+    private void open(Phase phase) {
+        openedAt[phase.ordinal()] = System.nanoTime();
+    }
+
+    private void close(Phase phase) {
+        long opened = openedAt[phase.ordinal()];
+        if (opened != 0) {
+            elapsed[phase.ordinal()] += System.nanoTime() - opened;
+            openedAt[phase.ordinal()] = 0;
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.virtualCard.config;
+
+import com.example.virtualCard.dto.CardResponse;
+import com.example.virtualCard.dto.TransactionResponse;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractSmartHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Write-only JSON converter for card and transaction response records, registered ahead of
+ * the general Jackson converter. Anything else falls through to Jackson.
+ */
+class ResponseJsonConverter extends AbstractSmartHttpMessageConverter<Object> {
+
+    private final ResponseJsonWriter writer;
+
+    ResponseJsonConverter(ResponseJsonWriter writer) {
+        super(MediaType.APPLICATION_JSON);
+        this.writer = writer;
+    }
+
+    @Override
+    public boolean canRead(ResolvableType type, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(ResolvableType type, HttpInputMessage inputMessage, Map<String, Object> hints) {
+        throw new HttpMessageNotReadableException("Response records are write-only", inputMessage);
+    }
+
+    @Override
+    public boolean canWrite(ResolvableType targetType, Class<?> valueClass, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        if (CardResponse.class.isAssignableFrom(valueClass) || TransactionResponse.class.isAssignableFrom(valueClass)) {
+            return true;
+        }
+        return Collection.class.isAssignableFrom(valueClass)
+                && targetType.asCollection().resolveGeneric(0) == TransactionResponse.class;
+    }
+
+    // Histories are unbounded, so they are streamed without a length and go out chunked.
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, ResolvableType type, HttpOutputMessage outputMessage,
+                                 Map<String, Object> hints) throws IOException {
+        if (value instanceof Collection<?> transactions) {
+            writer.writeArray((Collection<TransactionResponse>) transactions, outputMessage.getBody());
+            return;
+        }
+        writer.writeBuffered(value, buffer -> {
+            outputMessage.getHeaders().setContentLength(buffer.size());
+            buffer.writeTo(outputMessage.getBody());
+        });
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.virtualCard.config;
+
+import com.example.virtualCard.dto.CardResponse;
+import com.example.virtualCard.dto.TransactionResponse;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Writes card and transaction responses straight to a Jackson generator, with property names
+ * encoded once and no per-response reflection. Single records go through a small per-thread
+ * buffer so their length is known up front; lists are streamed to the response as written.
+ */
+@Component
+public class ResponseJsonWriter {
+
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString CARD_ID = new SerializedString("cardId");
+    private static final SerializableString CARDHOLDER_NAME = new SerializedString("cardholderName");
+    private static final SerializableString BALANCE = new SerializedString("balance");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString IDEMPOTENCY_KEY = new SerializedString("idempotencyKey");
+    private static final SerializableString DECLINE_REASON = new SerializedString("declineReason");
+    private static final SerializableString COUNTERPARTY_CARD_ID = new SerializedString("counterpartyCardId");
+    private static final SerializableString BALANCE_AFTER = new SerializedString("balanceAfter");
+
+    private static final ThreadLocal<ResponseBuffer> BUFFERS = ThreadLocal.withInitial(ResponseBuffer::new);
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter streamWriter;
+
+    public ResponseJsonWriter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.streamWriter = objectMapper.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Serializes a card or transaction into this thread's buffer and passes the finished
+     * bytes to {@code sink}, so the caller can set Content-Length before writing.
+     */
+    public void writeBuffered(Object value, BufferSink sink) throws IOException {
+        ResponseBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        try {
+            try (JsonGenerator generator = objectMapper.createGenerator(buffer)) {
+                if (value instanceof CardResponse card) {
+                    writeCard(generator, card);
+                } else {
+                    writeTransaction(generator, (TransactionResponse) value);
+                }
+            }
+            sink.accept(buffer);
+        } finally {
+            if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+                BUFFERS.remove();
+            }
+        }
+    }
+
+    /**
+     * Writes each transaction as one line of newline-delimited JSON. {@code out} is left open.
+     */
+    public void writeLines(Collection<TransactionResponse> transactions, OutputStream out) {
+        try (JsonGenerator generator = streamWriter.createGenerator(out)) {
+            for (TransactionResponse transaction : transactions) {
+                writeTransaction(generator, transaction);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    /**
+     * Writes the transactions as a JSON array straight to {@code out}. {@code out} is left open.
+     */
+    public void writeArray(Collection<TransactionResponse> transactions, OutputStream out) {
+        try (JsonGenerator generator = streamWriter.createGenerator(out)) {
+            generator.writeStartArray(transactions, transactions.size());
+            for (TransactionResponse transaction : transactions) {
+                writeTransaction(generator, transaction);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    private void writeCard(JsonGenerator generator, CardResponse card) {
+        generator.writeStartObject();
+        writeUuid(generator, ID, card.id());
+        writeString(generator, CARDHOLDER_NAME, card.cardholderName());
+        writeDecimal(generator, BALANCE, card.balance());
+        writeString(generator, STATUS, card.status() == null ? null : card.status().name());
+        writeTimestamp(generator, CREATED_AT, card.createdAt());
+        generator.writeEndObject();
+    }
+
+    private void writeTransaction(JsonGenerator generator, TransactionResponse transaction) {
+        generator.writeStartObject();
+        writeUuid(generator, ID, transaction.id());
+        writeUuid(generator, CARD_ID, transaction.cardId());
+        writeDecimal(generator, AMOUNT, transaction.amount());
+        writeString(generator, TYPE, transaction.type() == null ? null : transaction.type().name());
+        writeString(generator, IDEMPOTENCY_KEY, transaction.idempotencyKey());
+        writeString(generator, STATUS, transaction.status() == null ? null : transaction.status().name());
+        writeString(generator, DECLINE_REASON,
+                transaction.declineReason() == null ? null : transaction.declineReason().name());
+        writeUuid(generator, COUNTERPARTY_CARD_ID, transaction.counterpartyCardId());
+        writeDecimal(generator, BALANCE_AFTER, transaction.balanceAfter());
+        writeTimestamp(generator, CREATED_AT, transaction.createdAt());
+        generator.writeEndObject();
+    }
+
+    private static void writeDecimal(JsonGenerator generator, SerializableString name, BigDecimal value) {
+        generator.writeName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    private static void writeUuid(JsonGenerator generator, SerializableString name, UUID value) {
+        writeString(generator, name, value == null ? null : value.toString());
+    }
+
+    private static void writeTimestamp(JsonGenerator generator, SerializableString name, LocalDateTime value) {
+        writeString(generator, name, value == null ? null : DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value) {
+        generator.writeName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    @FunctionalInterface
+    public interface BufferSink {
+        void accept(ByteArrayOutputStream buffer) throws IOException;
+    }
+
+    private static final class ResponseBuffer extends ByteArrayOutputStream {
+        ResponseBuffer() {
+            super(1024);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.virtualCard.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+public class RoutingDataSourceConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "virtualcard.replica", name = "enabled", havingValue = "true")
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaProperties properties) {
+        return new ReplicaLagMonitor(properties);
+    }
+
+    /**
+     * Replaces the single auto-configured datasource when sharding or read replicas are on:
+     * one primary pool per shard (or just spring.datasource when unsharded), each optionally
+     * paired with a replica. The lazy proxy defers connection checkout to the first statement,
+     * so the shard bound inside a {@code @Transactional} method and the transaction's
+     * read-only flag are both known when the target is picked.
+     */
+    @Bean
+    @ConditionalOnExpression("${virtualcard.sharding.enabled:false} or ${virtualcard.replica.enabled:false}")
+    public DataSource dataSource(ShardingProperties sharding, ReplicaProperties replicas, DataSourceProperties primary,
+                                 MeterRegistry meterRegistry,
+                                 ObjectProvider<ReplicaLagMonitor> lagMonitor) {
+        if (!sharding.isEnabled()) {
+            DataSource pool = new ConnectionTimingDataSource(primary.initializeDataSourceBuilder().build());
+            if (replicas.getUrl() == null) {
+                throw new IllegalStateException("virtualcard.replica.enabled requires virtualcard.replica.url");
+            }
+            DataSource replicaPool = pool(replicas.getUrl(), replicas.getUsername(), replicas.getPassword());
+            return new LazyConnectionDataSourceProxy(
+                    withReplica("primary", pool, replicaPool, replicas, meterRegistry, lagMonitor.getObject()));
+        }
+
+        List<ShardingProperties.Shard> shards = sharding.getShards();
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("virtualcard.sharding.enabled requires at least one shard");
+        }
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            ShardingProperties.Shard shard = shards.get(i);
+            DataSource pool = pool(shard.getUrl(), shard.getUsername(), shard.getPassword());
+            ShardingProperties.Shard replica = shard.getReplica();
+            if (replicas.isEnabled() && replica != null) {
+                DataSource replicaPool = pool(replica.getUrl(), replica.getUsername(), replica.getPassword());
+                targets.put(i, withReplica("shard-" + i, pool, replicaPool, replicas, meterRegistry, lagMonitor.getObject()));
+            } else {
+                targets.put(i, pool);
+            }
+        }
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(0));
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * Times checkout from the auto-configured pool when it is used directly; the pools built
+     * below are wrapped as they are created.
+     */
+    @Bean
+    static BeanPostProcessor connectionTiming() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof HikariDataSource pool ? new ConnectionTimingDataSource(pool) : bean;
+            }
+        };
+    }
+
+    /**
+     * Hibernate's ddl-auto only runs against the default shard (0); this creates the same
+     * schema on the remaining shards. Meant for local and embedded setups.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "virtualcard.sharding", name = {"enabled", "initialize-schema"}, havingValue = "true")
+    public SmartInitializingSingleton shardSchemaInitializer(ShardingProperties properties, EntityManagerFactory entityManagerFactory) {
+        return () -> {
+            for (int shard = 1; shard < properties.shardCount(); shard++) {
+                try (ShardContext.Scope ignored = ShardContext.bind(shard)) {
+                    entityManagerFactory.getSchemaManager().create(true);
+                }
+            }
+        };
+    }
+
+    private static DataSource pool(String url, String username, String password) {
+        return new ConnectionTimingDataSource(DataSourceBuilder.create().url(url).username(username).password(password).build());
+    }
+
+    private static DataSource withReplica(String name, DataSource primary, DataSource replica, ReplicaProperties properties,
+                                          MeterRegistry meterRegistry, ReplicaLagMonitor lagMonitor) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(name, primary, replica, properties, meterRegistry);
+        lagMonitor.register(routing);
+        return routing;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.virtualCard.config;
+
+import com.example.virtualCard.enums.DeclineReason;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Schema changes that {@code ddl-auto=update} cannot make on databases created by earlier
+ * versions, applied on every shard once Hibernate has updated the schema. Each step looks at
+ * the catalog first, so it does nothing on fresh or already upgraded databases. Deployments
+ * that only validate the schema (the fast-start profile) need one plain start first.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.jpa.hibernate.ddl-auto", havingValue = "update")
+public class SchemaUpgrades implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(SchemaUpgrades.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    public SchemaUpgrades(DataSource dataSource, ShardRouter shardRouter) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        shardRouter.fanOut(this::dropUniqueIdempotencyKey);
+        shardRouter.fanOut(this::widenDeclineReasonChecks);
+    }
+
+    // transactions.idempotency_key was unique until claims moved to idempotency_keys; keys are
+    // now scoped per card and both legs of a transfer carry the same key.
+    int dropUniqueIdempotencyKey() {
+        List<String> constraints = jdbcTemplate.queryForList("""
+                select tc.constraint_name
+                from information_schema.table_constraints tc
+                join information_schema.key_column_usage kcu
+                  on kcu.constraint_schema = tc.constraint_schema and kcu.constraint_name = tc.constraint_name
+                where tc.constraint_type = 'UNIQUE'
+                  and tc.table_schema = current_schema
+                  and lower(tc.table_name) = 'transactions'
+                  and lower(kcu.column_name) = 'idempotency_key'
+                """, String.class);
+        for (String constraint : constraints) {
+            jdbcTemplate.execute("alter table transactions drop constraint " + quote(constraint));
+            log.info("Dropped legacy unique constraint {} on transactions.idempotency_key", constraint);
+        }
+        return constraints.size();
+    }
+
+    // Hibernate guards enum columns with a check listing the values known when the column was
+    // created, and ddl-auto=update never widens it; recreate any that miss a DeclineReason.
+    int widenDeclineReasonChecks() {
+        List<Map<String, Object>> constraints = jdbcTemplate.queryForList("""
+                select ccu.table_name, cc.constraint_name, cc.check_clause
+                from information_schema.check_constraints cc
+                join information_schema.constraint_column_usage ccu
+                  on ccu.constraint_schema = cc.constraint_schema and ccu.constraint_name = cc.constraint_name
+                where ccu.table_schema = current_schema
+                  and lower(ccu.table_name) in ('transactions', 'transactions_archive')
+                  and lower(ccu.column_name) = 'decline_reason'
+                """);
+        String values = Arrays.stream(DeclineReason.values())
+                .map(reason -> "'" + reason.name() + "'")
+                .collect(Collectors.joining(", "));
+        int widened = 0;
+        for (Map<String, Object> constraint : constraints) {
+            String clause = String.valueOf(constraint.get("check_clause"));
+            if (Arrays.stream(DeclineReason.values()).allMatch(reason -> clause.contains("'" + reason.name() + "'"))) {
+                continue;
+            }
+            String table = quote(String.valueOf(constraint.get("table_name")));
+            String name = quote(String.valueOf(constraint.get("constraint_name")));
+            jdbcTemplate.execute("alter table " + table + " drop constraint " + name);
+            jdbcTemplate.execute("alter table " + table + " add constraint " + name
+                    + " check (decline_reason in (" + values + "))");
+            log.info("Widened check constraint {} on {}.decline_reason", constraint.get("constraint_name"),
+                    constraint.get("table_name"));
+            widened++;
+        }
+        return widened;
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+}
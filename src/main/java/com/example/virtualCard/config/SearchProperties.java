@@ -0,0 +1,24 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds on cross-card search: the createdFrom..createdTo window, the page size, and how many
+ * card ids one search may filter on.
+ */
+@ConfigurationProperties(prefix = "virtualcard.search")
+public class SearchProperties {
+
+    private Duration maxWindow = Duration.ofHours(24);
+    private int maxPageSize = 500;
+    private int maxCardIds = 1000;
+
+    public Duration getMaxWindow() { return maxWindow; }
+    public void setMaxWindow(Duration maxWindow) { this.maxWindow = maxWindow; }
+    public int getMaxPageSize() { return maxPageSize; }
+    public void setMaxPageSize(int maxPageSize) { this.maxPageSize = maxPageSize; }
+    public int getMaxCardIds() { return maxCardIds; }
+    public void setMaxCardIds(int maxCardIds) { this.maxCardIds = maxCardIds; }
+}
@@ -0,0 +1,34 @@
+package com.example.virtualCard.config;
+
+/**
+ * Holds the shard the current thread is routed to. Bindings nest: closing a scope restores
+ * whatever shard was bound before it, so a service called from another service keeps the
+ * caller's routing.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {}
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static Scope bind(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.virtualCard.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Maps cards to shards. A card and all of its transactions live on the shard derived from
+ * the card id; issuance has no card id yet, so it is routed by its idempotency key and the
+ * new card id is drawn so that it hashes to that same shard.
+ */
+@Component
+public class ShardRouter {
+
+    private final int shardCount;
+    private final ExecutorService fanOutExecutor;
+
+    public ShardRouter(ShardingProperties properties) {
+        this.shardCount = properties.shardCount();
+        this.fanOutExecutor = shardCount > 1
+                ? Executors.newFixedThreadPool(shardCount, Thread.ofPlatform().name("shard-fanout-", 0).daemon().factory())
+                : null;
+    }
+
+    public int shardCount() {
+        return shardCount;
+    }
+
+    public int shardOf(UUID cardId) {
+        return Math.floorMod(mix(cardId.getMostSignificantBits() ^ cardId.getLeastSignificantBits()), shardCount);
+    }
+
+    public int shardOfKey(String idempotencyKey) {
+        return Math.floorMod(mix(idempotencyKey.hashCode()), shardCount);
+    }
+
+    public UUID newCardId(int shard) {
+        UUID id = UUID.randomUUID();
+        while (shardOf(id) != shard) {
+            id = UUID.randomUUID();
+        }
+        return id;
+    }
+
+    public ShardContext.Scope bindCard(UUID cardId) {
+        return ShardContext.bind(shardOf(cardId));
+    }
+
+    public ShardContext.Scope bindKey(String idempotencyKey) {
+        return ShardContext.bind(shardOfKey(idempotencyKey));
+    }
+
+    /**
+     * Runs {@code query} once per shard, in parallel, and returns the results in shard order.
+     * The query must open its own transaction (e.g. a repository call) because it runs on a
+     * pool thread.
+     */
+    public <T> List<T> fanOut(Supplier<T> query) {
+        if (fanOutExecutor == null) {
+            try (ShardContext.Scope ignored = ShardContext.bind(0)) {
+                return List.of(query.get());
+            }
+        }
+        List<CompletableFuture<T>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try (ShardContext.Scope ignored = ShardContext.bind(target)) {
+                    return query.get();
+                }
+            }, fanOutExecutor));
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.shutdownNow();
+        }
+    }
+
+    private static int mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        return (int) value;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "virtualcard.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+    private boolean initializeSchema;
+    private List<Shard> shards = new ArrayList<>();
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public boolean isInitializeSchema() { return initializeSchema; }
+    public void setInitializeSchema(boolean initializeSchema) { this.initializeSchema = initializeSchema; }
+    public List<Shard> getShards() { return shards; }
+    public void setShards(List<Shard> shards) { this.shards = shards; }
+
+    public int shardCount() {
+        return enabled && !shards.isEmpty() ? shards.size() : 1;
+    }
+
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private Shard replica;
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+        public String getPassword() { return password; }
+        public void setPassword(String password) { this.password = password; }
+        public Shard getReplica() { return replica; }
+        public void setReplica(Shard replica) { this.replica = replica; }
+    }
+}
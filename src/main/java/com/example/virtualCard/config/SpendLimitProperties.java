@@ -0,0 +1,26 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+
+/**
+ * Per-card spend limits. A null limit is not enforced.
+ */
+@ConfigurationProperties(prefix = "virtualcard.limits")
+public class SpendLimitProperties {
+
+    private boolean enabled;
+    private BigDecimal perMinuteAmount;
+    private Integer perMinuteCount;
+    private BigDecimal dailyAmount;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public BigDecimal getPerMinuteAmount() { return perMinuteAmount; }
+    public void setPerMinuteAmount(BigDecimal perMinuteAmount) { this.perMinuteAmount = perMinuteAmount; }
+    public Integer getPerMinuteCount() { return perMinuteCount; }
+    public void setPerMinuteCount(Integer perMinuteCount) { this.perMinuteCount = perMinuteCount; }
+    public BigDecimal getDailyAmount() { return dailyAmount; }
+    public void setDailyAmount(BigDecimal dailyAmount) { this.dailyAmount = dailyAmount; }
+}
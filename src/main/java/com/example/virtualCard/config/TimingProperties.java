@@ -0,0 +1,21 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Card API requests slower than slow-threshold are logged with their phase timings, at
+ * slow-sample-rate (0 to 1).
+ */
+@ConfigurationProperties(prefix = "virtualcard.timing")
+public class TimingProperties {
+
+    private Duration slowThreshold = Duration.ofMillis(500);
+    private double slowSampleRate = 1.0;
+
+    public Duration getSlowThreshold() { return slowThreshold; }
+    public void setSlowThreshold(Duration slowThreshold) { this.slowThreshold = slowThreshold; }
+    public double getSlowSampleRate() { return slowSampleRate; }
+    public void setSlowSampleRate(double slowSampleRate) { this.slowSampleRate = slowSampleRate; }
+}
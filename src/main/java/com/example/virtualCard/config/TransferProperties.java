@@ -0,0 +1,28 @@
+package com.example.virtualCard.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Pooled cards receive transfer credits asynchronously, in batches, instead of being locked
+ * by every transfer that pays into them.
+ */
+@ConfigurationProperties(prefix = "virtualcard.transfers")
+public class TransferProperties {
+
+    private Set<UUID> pooledCards = new HashSet<>();
+    private Duration settleInterval = Duration.ofMillis(200);
+    private int settleBatchSize = 1000;
+
+    public boolean isPooled(UUID cardId) { return pooledCards.contains(cardId); }
+    public Set<UUID> getPooledCards() { return pooledCards; }
+    public void setPooledCards(Set<UUID> pooledCards) { this.pooledCards = pooledCards; }
+    public Duration getSettleInterval() { return settleInterval; }
+    public void setSettleInterval(Duration settleInterval) { this.settleInterval = settleInterval; }
+    public int getSettleBatchSize() { return settleBatchSize; }
+    public void setSettleBatchSize(int settleBatchSize) { this.settleBatchSize = settleBatchSize; }
+}
@@ -0,0 +1,20 @@
+package com.example.virtualCard.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final ResponseJsonWriter responseJsonWriter;
+
+    public WebConfig(ResponseJsonWriter responseJsonWriter) {
+        this.responseJsonWriter = responseJsonWriter;
+    }
+
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.addCustomConverter(new ResponseJsonConverter(responseJsonWriter));
+    }
+}
@@ -1,13 +1,28 @@
 package com.example.virtualCard.controller;
 
+import com.example.virtualCard.config.TransferProperties;
 import com.example.virtualCard.dto.AmountRequest;
+import com.example.virtualCard.dto.BulkStatusChangeRequest;
+import com.example.virtualCard.dto.BulkStatusChangeResponse;
+import com.example.virtualCard.dto.BulkStatusFilterRequest;
+import com.example.virtualCard.dto.CardOperationResult;
+import com.example.virtualCard.dto.CardResponse;
+import com.example.virtualCard.dto.CardSummaryResponse;
 import com.example.virtualCard.dto.CreateCardRequest;
+import com.example.virtualCard.dto.TransactionHistory;
 import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.dto.TransferRequest;
 import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.exception.ApiErrorResponse;
 import jakarta.validation.Valid;
+import com.example.virtualCard.services.AdmissionControl;
+import com.example.virtualCard.services.CardLifecycleService;
 import com.example.virtualCard.services.CardService;
 import com.example.virtualCard.services.TransactionQueryService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.UUID;
@@ -17,32 +32,87 @@ import java.util.UUID;
 public class CardController {
     private final CardService cardService;
     private final TransactionQueryService transactionQueryService;
+    private final CardLifecycleService cardLifecycleService;
+    private final AdmissionControl admissionControl;
+    private final TransferProperties transferProperties;
 
-    public CardController(CardService cardService, TransactionQueryService transactionQueryService) {
+    public CardController(CardService cardService, TransactionQueryService transactionQueryService,
+                          CardLifecycleService cardLifecycleService, AdmissionControl admissionControl,
+                          TransferProperties transferProperties) {
         this.cardService = cardService;
         this.transactionQueryService = transactionQueryService;
+        this.cardLifecycleService = cardLifecycleService;
+        this.admissionControl = admissionControl;
+        this.transferProperties = transferProperties;
     }
     @PostMapping("/create")
-    public Card create(@Valid @RequestBody CreateCardRequest req)
+    public ResponseEntity<?> create(@Valid @RequestBody CreateCardRequest req)
     {
-        return cardService.createCard(req.getCardholderName(), req.getInitialBalance(), req.getIdempotencyKey());
+        return toResponse(admissionControl.admit(null,
+                () -> cardService.createCard(req.getCardholderName(), req.getInitialBalance(), req.getIdempotencyKey())));
     }
     @GetMapping("/{id}")
-    public Card get(@PathVariable UUID id)
+    public ResponseEntity<CardResponse> get(@PathVariable UUID id, WebRequest request)
     {
-        return cardService.getCard(id);
+        if (request.getHeader("If-None-Match") != null
+                && request.checkNotModified(cardETag(cardService.getCardVersion(id)))) {
+            return null;
+        }
+        Card card = cardService.getCard(id);
+        return ResponseEntity.ok().eTag(cardETag(card.getVersion())).body(CardResponse.from(card));
     }
     @PostMapping("/{id}/topup")
-    public Card topup(@PathVariable UUID id, @Valid @RequestBody AmountRequest req) {
-        return cardService.topup(id, req.getAmount(), req.getIdempotencyKey());
+    public ResponseEntity<?> topup(@PathVariable UUID id, @Valid @RequestBody AmountRequest req) {
+        return toResponse(admissionControl.admit(id, () -> cardService.topup(id, req.getAmount(), req.getIdempotencyKey())));
     }
     @PostMapping("/{id}/spend")
-    public Card spend(@PathVariable UUID id, @Valid @RequestBody AmountRequest req) {
-        return cardService.spend(id, req.getAmount(), req.getIdempotencyKey());
+    public ResponseEntity<?> spend(@PathVariable UUID id, @Valid @RequestBody AmountRequest req) {
+        return toResponse(admissionControl.admit(id, () -> cardService.spend(id, req.getAmount(), req.getIdempotencyKey())));
+    }
+    @PostMapping("/{id}/transfer")
+    public ResponseEntity<?> transfer(@PathVariable UUID id, @Valid @RequestBody TransferRequest req) {
+        UUID gatedDestination = transferProperties.isPooled(req.getDestinationCardId()) ? null : req.getDestinationCardId();
+        return toResponse(admissionControl.admit(id, gatedDestination,
+                () -> cardService.transfer(id, req.getDestinationCardId(), req.getAmount(), req.getIdempotencyKey())));
     }
 
+    // Only conditional polls pay for the watermark query; it is read before the history, so a
+    // concurrent write can only make the ETag older than the body, never a false 304.
     @GetMapping("/{id}/transactions")
-    public List<TransactionResponse> transactions(@PathVariable UUID id) {
-        return transactionQueryService.getTransactions(id);
+    public ResponseEntity<List<TransactionResponse>> transactions(@PathVariable UUID id, WebRequest request) {
+        if (request.getHeader("If-None-Match") != null
+                && request.checkNotModified(transactionQueryService.getHistoryWatermark(id).toETag())) {
+            return null;
+        }
+        TransactionHistory history = transactionQueryService.getHistory(id);
+        return ResponseEntity.ok().eTag(history.watermark().toETag()).body(history.transactions());
+    }
+
+    @GetMapping("/{id}/summary")
+    public CardSummaryResponse summary(@PathVariable UUID id) {
+        return transactionQueryService.getSummary(id);
+    }
+
+    @PostMapping("/bulk/status")
+    public BulkStatusChangeResponse changeStatus(@Valid @RequestBody BulkStatusChangeRequest req) {
+        return cardLifecycleService.changeStatus(req.getCardIds(), req.getStatus());
+    }
+
+    @PostMapping("/bulk/status/filter")
+    public BulkStatusChangeResponse changeStatusWhere(@Valid @RequestBody BulkStatusFilterRequest req) {
+        return cardLifecycleService.changeStatusWhere(req.getStatus(), req.getCreatedAfter(), req.getCreatedBefore());
+    }
+
+    // Same status codes and bodies GlobalExceptionHandler produces for the equivalent exceptions.
+    private static ResponseEntity<?> toResponse(CardOperationResult result) {
+        return switch (result.outcome()) {
+            case SUCCESS, REPLAYED -> ResponseEntity.ok(CardResponse.from(result.card()));
+            case DECLINED -> new ResponseEntity<>(new ApiErrorResponse(400, result.message()), HttpStatus.BAD_REQUEST);
+            case IN_PROGRESS, CONFLICT -> new ResponseEntity<>(new ApiErrorResponse(409, result.message()), HttpStatus.CONFLICT);
+        };
+    }
+
+    private static String cardETag(Long version) {
+        return "v" + version;
     }
 }
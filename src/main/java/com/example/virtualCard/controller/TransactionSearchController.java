@@ -0,0 +1,38 @@
+package com.example.virtualCard.controller;
+
+import com.example.virtualCard.dto.TransactionSearchCriteria;
+import com.example.virtualCard.dto.TransactionSearchPage;
+import com.example.virtualCard.dto.TransactionSearchRequest;
+import com.example.virtualCard.services.TransactionSearchService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/v1/transactions")
+public class TransactionSearchController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final TransactionSearchService transactionSearchService;
+
+    public TransactionSearchController(TransactionSearchService transactionSearchService) {
+        this.transactionSearchService = transactionSearchService;
+    }
+
+    @GetMapping("/search")
+    public TransactionSearchPage search(TransactionSearchRequest req) {
+        return transactionSearchService.search(req.toCriteria(), req.cursor(), req.limit());
+    }
+
+    @GetMapping("/search/stream")
+    public ResponseEntity<StreamingResponseBody> stream(TransactionSearchRequest req) {
+        TransactionSearchCriteria criteria = req.toCriteria();
+        transactionSearchService.requireIndexed(criteria);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(out -> transactionSearchService.stream(criteria, out));
+    }
+}
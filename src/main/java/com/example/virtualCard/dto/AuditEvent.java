@@ -0,0 +1,44 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.enums.AuditOutcome;
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * One card operation outcome, as written to the audit log. Transfers are recorded once, as
+ * a SPEND on the source card with the destination as counterparty.
+ */
+public record AuditEvent(long timestamp, AuditOutcome outcome, TransactionType type, UUID cardId,
+                         UUID counterpartyCardId, BigDecimal amount, String idempotencyKey,
+                         DeclineReason declineReason) {
+
+    public AuditEvent {
+        Objects.requireNonNull(outcome, "outcome");
+        Objects.requireNonNull(type, "type");
+        Objects.requireNonNull(cardId, "cardId");
+        Objects.requireNonNull(amount, "amount");
+        Objects.requireNonNull(idempotencyKey, "idempotencyKey");
+    }
+
+    public static AuditEvent applied(TransactionType type, UUID cardId, UUID counterpartyCardId, BigDecimal amount,
+                                     String idempotencyKey) {
+        return new AuditEvent(System.currentTimeMillis(), AuditOutcome.APPLIED, type, cardId, counterpartyCardId,
+                amount, idempotencyKey, null);
+    }
+
+    public static AuditEvent declined(UUID cardId, UUID counterpartyCardId, BigDecimal amount, String idempotencyKey,
+                                      DeclineReason reason) {
+        return new AuditEvent(System.currentTimeMillis(), AuditOutcome.DECLINED, TransactionType.SPEND, cardId,
+                counterpartyCardId, amount, idempotencyKey, reason);
+    }
+
+    public static AuditEvent replayed(TransactionType type, UUID cardId, UUID counterpartyCardId, BigDecimal amount,
+                                      String idempotencyKey) {
+        return new AuditEvent(System.currentTimeMillis(), AuditOutcome.REPLAYED, type, cardId, counterpartyCardId,
+                amount, idempotencyKey, null);
+    }
+}
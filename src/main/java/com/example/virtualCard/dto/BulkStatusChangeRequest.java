@@ -0,0 +1,21 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.enums.CardStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+public class BulkStatusChangeRequest {
+    @NotEmpty(message = "cardIds is required")
+    @Size(max = 100000, message = "cardIds cannot exceed 100000 entries")
+    private List<UUID> cardIds;
+
+    @NotNull(message = "status is required")
+    private CardStatus status;
+
+    public List<UUID> getCardIds() { return cardIds; }
+    public CardStatus getStatus() { return status; }
+}
@@ -0,0 +1,15 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.enums.CardStatus;
+
+/**
+ * {@code matched} is the number of cards the request addressed (distinct ids, or cards the
+ * filter selected); {@code updated} is how many actually changed status. The difference is
+ * cards that were missing, already in the target status, or closed.
+ */
+public record BulkStatusChangeResponse(CardStatus status, int matched, int updated, int chunks) {
+
+    public BulkStatusChangeResponse plus(BulkStatusChangeResponse other) {
+        return new BulkStatusChangeResponse(status, matched + other.matched, updated + other.updated, chunks + other.chunks);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.enums.CardStatus;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDateTime;
+
+public class BulkStatusFilterRequest {
+    @NotNull(message = "status is required")
+    private CardStatus status;
+
+    private LocalDateTime createdAfter;
+    private LocalDateTime createdBefore;
+
+    public CardStatus getStatus() { return status; }
+    public LocalDateTime getCreatedAfter() { return createdAfter; }
+    public LocalDateTime getCreatedBefore() { return createdBefore; }
+}
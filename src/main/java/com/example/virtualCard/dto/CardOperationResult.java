@@ -0,0 +1,55 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.DeclineReason;
+
+/**
+ * Outcome of a card-mutating call. Declines and idempotency outcomes are expected under load,
+ * so they are returned rather than thrown.
+ */
+public record CardOperationResult(Outcome outcome, Card card, DeclineReason declineReason, String message) {
+
+    public enum Outcome {
+        SUCCESS,
+        REPLAYED,
+        DECLINED,
+        IN_PROGRESS,
+        CONFLICT
+    }
+
+    private static final String PAYLOAD_MISMATCH = "Idempotency key reused with different request payload";
+    private static final CardOperationResult IN_PROGRESS_RESULT = new CardOperationResult(
+            Outcome.IN_PROGRESS, null, null, "A request with this idempotency key is already in progress");
+    private static final CardOperationResult PAYLOAD_CONFLICT_RESULT = new CardOperationResult(
+            Outcome.CONFLICT, null, null, PAYLOAD_MISMATCH);
+    private static final CardOperationResult INSUFFICIENT_BALANCE_RESULT = new CardOperationResult(
+            Outcome.DECLINED, null, DeclineReason.INSUFFICIENT_BALANCE, "Insufficient balance");
+    private static final CardOperationResult VELOCITY_LIMIT_RESULT = new CardOperationResult(
+            Outcome.DECLINED, null, DeclineReason.VELOCITY_LIMIT, "Spend limit exceeded");
+    private static final CardOperationResult CARD_NOT_ACTIVE_RESULT = new CardOperationResult(
+            Outcome.DECLINED, null, DeclineReason.CARD_NOT_ACTIVE, "Card is not active");
+
+    public static CardOperationResult success(Card card) {
+        return new CardOperationResult(Outcome.SUCCESS, card, null, null);
+    }
+
+    public static CardOperationResult replayed(Card card) {
+        return new CardOperationResult(Outcome.REPLAYED, card, null, null);
+    }
+
+    public static CardOperationResult declined(DeclineReason reason) {
+        return switch (reason) {
+            case INSUFFICIENT_BALANCE -> INSUFFICIENT_BALANCE_RESULT;
+            case VELOCITY_LIMIT -> VELOCITY_LIMIT_RESULT;
+            case CARD_NOT_ACTIVE -> CARD_NOT_ACTIVE_RESULT;
+        };
+    }
+
+    public static CardOperationResult inProgress() {
+        return IN_PROGRESS_RESULT;
+    }
+
+    public static CardOperationResult payloadConflict() {
+        return PAYLOAD_CONFLICT_RESULT;
+    }
+}
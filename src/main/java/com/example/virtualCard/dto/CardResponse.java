@@ -0,0 +1,25 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.CardStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Snapshot of a card for API responses, taken while the entity is still in hand so the
+ * response never touches a managed or shared instance.
+ */
+public record CardResponse(
+        UUID id,
+        String cardholderName,
+        BigDecimal balance,
+        CardStatus status,
+        LocalDateTime createdAt
+) {
+    public static CardResponse from(Card card) {
+        return new CardResponse(card.getId(), card.getCardholderName(), card.getBalance(), card.getStatus(),
+                card.getCreatedAt());
+    }
+}
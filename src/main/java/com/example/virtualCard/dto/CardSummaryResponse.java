@@ -0,0 +1,15 @@
+package com.example.virtualCard.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record CardSummaryResponse(
+        UUID cardId,
+        BigDecimal balance,
+        BigDecimal totalToppedUp,
+        BigDecimal totalSpent,
+        long declineCount,
+        LocalDateTime lastActivityAt
+) {
+}
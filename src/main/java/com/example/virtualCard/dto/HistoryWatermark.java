@@ -0,0 +1,16 @@
+package com.example.virtualCard.dto;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Cheap summary of a card's history that changes whenever the card row or its transaction
+ * list does; used as the ETag for the history endpoint.
+ */
+public record HistoryWatermark(Long cardVersion, long transactionCount, LocalDateTime latestCreatedAt) {
+
+    public String toETag() {
+        long latest = latestCreatedAt == null ? 0 : latestCreatedAt.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return "v" + cardVersion + "-" + transactionCount + "-" + latest;
+    }
+}
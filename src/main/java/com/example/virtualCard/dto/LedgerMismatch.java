@@ -0,0 +1,7 @@
+package com.example.virtualCard.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record LedgerMismatch(UUID cardId, BigDecimal balance, BigDecimal ledgerBalance) {
+}
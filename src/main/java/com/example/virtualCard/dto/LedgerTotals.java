@@ -0,0 +1,16 @@
+package com.example.virtualCard.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Summary totals aggregated from ledger rows, for cards issued before summaries were kept.
+ */
+public record LedgerTotals(BigDecimal toppedUp, BigDecimal spent, long declines, LocalDateTime lastActivityAt) {
+
+    public LedgerTotals plus(LedgerTotals other) {
+        LocalDateTime latest = lastActivityAt == null || (other.lastActivityAt != null
+                && other.lastActivityAt.isAfter(lastActivityAt)) ? other.lastActivityAt : lastActivityAt;
+        return new LedgerTotals(toppedUp.add(other.toppedUp), spent.add(other.spent), declines + other.declines, latest);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.entity.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Keyset position in (createdAt, id) order; opaque to clients.
+ */
+public record SearchCursor(LocalDateTime createdAt, UUID id) {
+
+    public static SearchCursor after(Transaction transaction) {
+        return new SearchCursor(transaction.getCreatedAt(), transaction.getId());
+    }
+
+    public static SearchCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('|');
+            return new SearchCursor(LocalDateTime.parse(raw.substring(0, separator)), UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("cursor is invalid");
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.virtualCard.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record SpendSample(UUID cardId, BigDecimal amount, LocalDateTime createdAt) {
+}
@@ -0,0 +1,9 @@
+package com.example.virtualCard.dto;
+
+import java.util.List;
+
+/**
+ * A card's history together with the watermark of the rows it was read from.
+ */
+public record TransactionHistory(HistoryWatermark watermark, List<TransactionResponse> transactions) {
+}
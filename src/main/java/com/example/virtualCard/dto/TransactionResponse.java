@@ -1,6 +1,8 @@
 package com.example.virtualCard.dto;
 
+import com.example.virtualCard.entity.ArchivedTransaction;
 import com.example.virtualCard.entity.Transaction;
+import com.example.virtualCard.enums.DeclineReason;
 import com.example.virtualCard.enums.TransactionStatus;
 import com.example.virtualCard.enums.TransactionType;
 
@@ -8,33 +10,18 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
-public class TransactionResponse {
-    private final UUID id;
-    private final UUID cardId;
-    private final BigDecimal amount;
-    private final TransactionType type;
-    private final String idempotencyKey;
-    private final TransactionStatus status;
-    private final LocalDateTime createdAt;
-
-    public TransactionResponse(
-            UUID id,
-            UUID cardId,
-            BigDecimal amount,
-            TransactionType type,
-            String idempotencyKey,
-            TransactionStatus status,
-            LocalDateTime createdAt
-    ) {
-        this.id = id;
-        this.cardId = cardId;
-        this.amount = amount;
-        this.type = type;
-        this.idempotencyKey = idempotencyKey;
-        this.status = status;
-        this.createdAt = createdAt;
-    }
-
+public record TransactionResponse(
+        UUID id,
+        UUID cardId,
+        BigDecimal amount,
+        TransactionType type,
+        String idempotencyKey,
+        TransactionStatus status,
+        DeclineReason declineReason,
+        UUID counterpartyCardId,
+        BigDecimal balanceAfter,
+        LocalDateTime createdAt
+) {
     public static TransactionResponse from(Transaction transaction) {
         return new TransactionResponse(
                 transaction.getId(),
@@ -43,35 +30,25 @@ public class TransactionResponse {
                 transaction.getType(),
                 transaction.getIdempotencyKey(),
                 transaction.getStatus(),
+                transaction.getDeclineReason(),
+                transaction.getCounterpartyCardId(),
+                transaction.getBalanceAfter(),
                 transaction.getCreatedAt()
         );
     }
 
-    public UUID getId() {
-        return id;
-    }
-
-    public UUID getCardId() {
-        return cardId;
-    }
-
-    public BigDecimal getAmount() {
-        return amount;
-    }
-
-    public TransactionType getType() {
-        return type;
-    }
-
-    public String getIdempotencyKey() {
-        return idempotencyKey;
-    }
-
-    public TransactionStatus getStatus() {
-        return status;
-    }
-
-    public LocalDateTime getCreatedAt() {
-        return createdAt;
+    public static TransactionResponse from(ArchivedTransaction transaction) {
+        return new TransactionResponse(
+                transaction.getId(),
+                transaction.getCardId(),
+                transaction.getAmount(),
+                transaction.getType(),
+                transaction.getIdempotencyKey(),
+                transaction.getStatus(),
+                transaction.getDeclineReason(),
+                transaction.getCounterpartyCardId(),
+                transaction.getBalanceAfter(),
+                transaction.getCreatedAt()
+        );
     }
 }
@@ -0,0 +1,24 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Filters for a cross-card transaction search. Empty sets and null bounds mean "any";
+ * {@code createdFrom} is inclusive and {@code createdTo} exclusive.
+ */
+public record TransactionSearchCriteria(
+        Set<TransactionType> types,
+        Set<TransactionStatus> statuses,
+        BigDecimal minAmount,
+        BigDecimal maxAmount,
+        LocalDateTime createdFrom,
+        LocalDateTime createdTo,
+        Set<UUID> cardIds
+) {
+}
@@ -0,0 +1,6 @@
+package com.example.virtualCard.dto;
+
+import java.util.List;
+
+public record TransactionSearchPage(List<TransactionResponse> items, String nextCursor) {
+}
@@ -0,0 +1,36 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public record TransactionSearchRequest(
+        List<TransactionType> type,
+        List<TransactionStatus> status,
+        BigDecimal minAmount,
+        BigDecimal maxAmount,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+        List<UUID> cardId,
+        Integer limit,
+        String cursor
+) {
+
+    public TransactionSearchCriteria toCriteria() {
+        return new TransactionSearchCriteria(
+                type == null ? Set.of() : Set.copyOf(type),
+                status == null ? Set.of() : Set.copyOf(status),
+                minAmount,
+                maxAmount,
+                createdFrom,
+                createdTo,
+                cardId == null ? Set.of() : Set.copyOf(cardId)
+        );
+    }
+}
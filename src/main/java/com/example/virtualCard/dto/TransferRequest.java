@@ -0,0 +1,32 @@
+package com.example.virtualCard.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public class TransferRequest {
+    @NotNull(message = "destinationCardId is required")
+    private UUID destinationCardId;
+
+    @NotNull(message = "amount is required")
+    @Positive(message = "amount must be greater than zero")
+    private BigDecimal amount;
+
+    @NotBlank(message = "idempotencyKey is required")
+    private String idempotencyKey;
+
+    public UUID getDestinationCardId() {
+        return destinationCardId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.virtualCard.entity;
+
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Finalized ledger row moved out of {@code transactions} by the archiver, keeping its id so
+ * idempotency records can still point at it. No foreign key; the client's idempotency key
+ * is only kept when archived keys may be replayed.
+ */
+@Entity
+@Table(name = "transactions_archive", indexes = {
+        @Index(name = "idx_transactions_archive_card_created", columnList = "cardId, createdAt")
+})
+public class ArchivedTransaction {
+    @Id
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID cardId;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType type;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus status;
+
+    @Enumerated(EnumType.STRING)
+    private DeclineReason declineReason;
+
+    private BigDecimal amount;
+
+    private BigDecimal balanceAfter;
+
+    @Column(length = 100)
+    private String idempotencyKey;
+
+    private UUID counterpartyCardId;
+
+    private LocalDateTime createdAt;
+
+    public ArchivedTransaction() {}
+
+    public UUID getId() { return id; }
+    public UUID getCardId() { return cardId; }
+    public TransactionType getType() { return type; }
+    public TransactionStatus getStatus() { return status; }
+    public DeclineReason getDeclineReason() { return declineReason; }
+    public BigDecimal getAmount() { return amount; }
+    public BigDecimal getBalanceAfter() { return balanceAfter; }
+    public void setBalanceAfter(BigDecimal balanceAfter) { this.balanceAfter = balanceAfter; }
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public UUID getCounterpartyCardId() { return counterpartyCardId; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+
+    /**
+     * Detached stand-in for the original row, good enough for idempotent replay checks.
+     */
+    public Transaction toReplayTransaction() {
+        Card card = new Card();
+        card.setId(cardId);
+        Transaction transaction = new Transaction(card, type, amount, status, idempotencyKey, counterpartyCardId);
+        if (declineReason != null) {
+            transaction.decline(declineReason);
+        }
+        return transaction;
+    }
+}
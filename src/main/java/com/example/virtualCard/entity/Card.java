@@ -1,6 +1,7 @@
 package com.example.virtualCard.entity;
 
 import com.example.virtualCard.enums.CardStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.math.BigDecimal;
@@ -12,7 +13,6 @@ import java.util.UUID;
 
 public class Card {
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
     private String cardholderName;
 
@@ -37,16 +37,20 @@ public class Card {
         this.cardStatus = CardStatus.ACTIVE;
         this.createdAt = LocalDateTime.now();
     }
-    public void debit(BigDecimal amount) {
+    /**
+     * Debits the card, or returns false and leaves the balance alone when it is too low.
+     */
+    public boolean tryDebit(BigDecimal amount) {
         validateMonetaryAmount(amount);
 
         if (cardStatus != CardStatus.ACTIVE)
             throw new IllegalStateException("Card inactive");
 
         if (balance.compareTo(amount) < 0)
-            throw new IllegalStateException("Insufficient balance");
+            return false;
 
         balance = balance.subtract(amount);
+        return true;
     }
 
     public void credit(BigDecimal amount) {
@@ -57,6 +61,12 @@ public class Card {
 
         balance = balance.add(amount);
     }
+
+    // Returns money from a transfer that could not complete; allowed whatever the card's status.
+    public void refund(BigDecimal amount) {
+        validateMonetaryAmount(amount);
+        balance = balance.add(amount);
+    }
     public UUID getId() {
         return id;
     }
@@ -85,6 +95,11 @@ public class Card {
         return createdAt;
     }
 
+    @JsonIgnore
+    public Long getVersion() {
+        return version;
+    }
+
     public void setId(UUID cardId) {
         this.id=cardId;
     }
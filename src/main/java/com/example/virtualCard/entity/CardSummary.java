@@ -0,0 +1,38 @@
+package com.example.virtualCard.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Running totals for one card, kept up to date in the same transaction as each settled or
+ * declined ledger row so dashboards never aggregate history. Totals cover SUCCESS rows only
+ * (both legs of a transfer count on their own card); issuance is not a top-up.
+ */
+@Entity
+@Table(name = "card_summaries")
+public class CardSummary {
+    @Id
+    private UUID cardId;
+
+    @Column(nullable = false)
+    private BigDecimal totalToppedUp;
+
+    @Column(nullable = false)
+    private BigDecimal totalSpent;
+
+    @Column(nullable = false)
+    private long declineCount;
+
+    private LocalDateTime lastActivityAt;
+
+    public CardSummary() {}
+
+    public UUID getCardId() { return cardId; }
+    public BigDecimal getTotalToppedUp() { return totalToppedUp; }
+    public BigDecimal getTotalSpent() { return totalSpent; }
+    public long getDeclineCount() { return declineCount; }
+    public LocalDateTime getLastActivityAt() { return lastActivityAt; }
+}
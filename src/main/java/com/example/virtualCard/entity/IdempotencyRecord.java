@@ -0,0 +1,39 @@
+package com.example.virtualCard.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Claim on an idempotency key. The key is stored as a 128-bit hash of its scope and the
+ * client's key, so the primary key is fixed-width regardless of what clients send, and it
+ * points at the ledger row holding the outcome.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+    @Id
+    private UUID keyHash;
+
+    @Column(nullable = false)
+    private UUID transactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public IdempotencyRecord() {}
+    public IdempotencyRecord(UUID keyHash, UUID transactionId, LocalDateTime expiresAt) {
+        this.keyHash = keyHash;
+        this.transactionId = transactionId;
+        this.expiresAt = expiresAt;
+    }
+
+    public UUID getKeyHash() { return keyHash; }
+    public UUID getTransactionId() { return transactionId; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    public boolean isExpired(LocalDateTime now) {
+        return !expiresAt.isAfter(now);
+    }
+}
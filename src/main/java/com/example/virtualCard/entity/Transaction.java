@@ -1,6 +1,7 @@
 package com.example.virtualCard.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.example.virtualCard.enums.DeclineReason;
 import com.example.virtualCard.enums.TransactionStatus;
 import com.example.virtualCard.enums.TransactionType;
 import jakarta.persistence.*;
@@ -10,7 +11,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_card_created", columnList = "card_id, createdAt"),
+        @Index(name = "idx_transactions_status_created", columnList = "status, createdAt")
+})
 
 public class Transaction {
     @Id
@@ -22,23 +26,38 @@ public class Transaction {
     private Card card;
 
     private BigDecimal amount;
+
+    // Card balance once this row settled or was declined; null while PENDING.
+    private BigDecimal balanceAfter;
+
     @Enumerated(EnumType.STRING)
     private TransactionType type;
 
-    @Column(unique = true, length = 100,nullable = false)
+    @Column(length = 100,nullable = false)
     private String idempotencyKey;
 
     @Enumerated(EnumType.STRING)
     private TransactionStatus status;
 
+    @Enumerated(EnumType.STRING)
+    private DeclineReason declineReason;
+
+    // Other card of a transfer; the SPEND and TOPUP legs point at each other's card.
+    private UUID counterpartyCardId;
+
     private LocalDateTime createdAt;
     public Transaction(){}
     public Transaction(Card card, TransactionType type, BigDecimal amount, TransactionStatus status, String idempotencyKey) {
+        this(card, type, amount, status, idempotencyKey, null);
+    }
+    public Transaction(Card card, TransactionType type, BigDecimal amount, TransactionStatus status, String idempotencyKey,
+                       UUID counterpartyCardId) {
         this.card = card;
         this.type = type;
         this.amount = amount;
         this.status = status;
         this.idempotencyKey = idempotencyKey;
+        this.counterpartyCardId = counterpartyCardId;
         this.createdAt = LocalDateTime.now();
     }
 
@@ -47,8 +66,16 @@ public class Transaction {
     public void setCard(Card card) { this.card = card; }
     public TransactionType getType() { return type; }
     public BigDecimal getAmount() { return amount; }
+    public BigDecimal getBalanceAfter() { return balanceAfter; }
+    public void setBalanceAfter(BigDecimal balanceAfter) { this.balanceAfter = balanceAfter; }
     public String getIdempotencyKey() { return idempotencyKey; }
     public TransactionStatus getStatus() { return status; }
     public void setStatus(TransactionStatus status) { this.status = status; }
+    public DeclineReason getDeclineReason() { return declineReason; }
+    public UUID getCounterpartyCardId() { return counterpartyCardId; }
+    public void decline(DeclineReason reason) {
+        this.status = TransactionStatus.DECLINED;
+        this.declineReason = reason;
+    }
     public LocalDateTime getCreatedAt() { return createdAt; }
 }
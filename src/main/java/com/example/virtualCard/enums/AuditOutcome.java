@@ -0,0 +1,7 @@
+package com.example.virtualCard.enums;
+
+public enum AuditOutcome {
+    APPLIED,
+    DECLINED,
+    REPLAYED
+}
@@ -0,0 +1,7 @@
+package com.example.virtualCard.enums;
+
+public enum DeclineReason {
+    INSUFFICIENT_BALANCE,
+    VELOCITY_LIMIT,
+    CARD_NOT_ACTIVE
+}
@@ -0,0 +1,16 @@
+package com.example.virtualCard.exception;
+
+import java.time.Duration;
+
+public class AdmissionRejectedException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public AdmissionRejectedException(Duration retryAfter) {
+        super("Too many concurrent requests. Please retry later.");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
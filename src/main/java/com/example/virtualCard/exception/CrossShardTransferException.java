@@ -0,0 +1,7 @@
+package com.example.virtualCard.exception;
+
+public class CrossShardTransferException extends RuntimeException {
+    public CrossShardTransferException() {
+        super("Transfers between cards on different shards are not supported");
+    }
+}
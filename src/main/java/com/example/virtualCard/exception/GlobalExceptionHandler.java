@@ -1,6 +1,7 @@
 package com.example.virtualCard.exception;
 
 import jakarta.persistence.OptimisticLockException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
@@ -30,6 +31,14 @@ public class GlobalExceptionHandler  {
         );
     }
 
+    @ExceptionHandler(SpendLimitExceededException.class)
+    public ResponseEntity<ApiErrorResponse> handleSpendLimit(SpendLimitExceededException ex) {
+        return new ResponseEntity<>(
+                new ApiErrorResponse(400, ex.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
     @ExceptionHandler({ObjectOptimisticLockingFailureException.class, OptimisticLockException.class})
     public ResponseEntity<ApiErrorResponse> handleOptimisticLock(Exception ex) {
         return new ResponseEntity<>(
@@ -54,6 +63,30 @@ public class GlobalExceptionHandler  {
         );
     }
 
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ApiErrorResponse> handleAdmissionRejected(AdmissionRejectedException ex) {
+        long seconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(new ApiErrorResponse(429, ex.getMessage()));
+    }
+
+    @ExceptionHandler(UnindexedSearchException.class)
+    public ResponseEntity<ApiErrorResponse> handleUnindexedSearch(UnindexedSearchException ex) {
+        return new ResponseEntity<>(
+                new ApiErrorResponse(400, ex.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
+    @ExceptionHandler(CrossShardTransferException.class)
+    public ResponseEntity<ApiErrorResponse> handleCrossShardTransfer(CrossShardTransferException ex) {
+        return new ResponseEntity<>(
+                new ApiErrorResponse(400, ex.getMessage()),
+                HttpStatus.BAD_REQUEST
+        );
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiErrorResponse> handleValidation(MethodArgumentNotValidException ex) {
         String message = ex.getBindingResult().getFieldErrors().stream()
@@ -0,0 +1,7 @@
+package com.example.virtualCard.exception;
+
+public class SpendLimitExceededException extends RuntimeException {
+    public SpendLimitExceededException() {
+        super("Spend limit exceeded");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.virtualCard.repository;
+
+import com.example.virtualCard.dto.LedgerTotals;
+import com.example.virtualCard.entity.ArchivedTransaction;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ArchivedTransactionRepository extends JpaRepository<ArchivedTransaction, UUID> {
+    List<ArchivedTransaction> findByCardIdOrderByCreatedAt(UUID cardId);
+
+    @Modifying
+    @Query("""
+            insert into ArchivedTransaction (id, cardId, type, status, declineReason, amount, balanceAfter,
+                                             idempotencyKey, counterpartyCardId, createdAt)
+            select t.id, t.card.id, t.type, t.status, t.declineReason, t.amount, t.balanceAfter,
+                   case when :keepKeys = true then t.idempotencyKey else null end, t.counterpartyCardId, t.createdAt
+            from Transaction t where t.id in :ids
+            """)
+    int copyFromHot(@Param("ids") Collection<UUID> ids, @Param("keepKeys") boolean keepKeys);
+
+    @Query("""
+            select new com.example.virtualCard.dto.LedgerTotals(
+                coalesce(sum(case when a.type = :creditType and a.status = :settled then a.amount end), 0),
+                coalesce(sum(case when a.type = :debitType and a.status = :settled then a.amount end), 0),
+                count(case when a.status = :declined then 1 end),
+                max(a.createdAt))
+            from ArchivedTransaction a where a.cardId = :cardId
+            """)
+    LedgerTotals sumLedger(@Param("cardId") UUID cardId,
+                           @Param("creditType") TransactionType creditType,
+                           @Param("debitType") TransactionType debitType,
+                           @Param("settled") TransactionStatus settled,
+                           @Param("declined") TransactionStatus declined);
+}
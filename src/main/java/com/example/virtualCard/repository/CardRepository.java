@@ -1,12 +1,18 @@
 package com.example.virtualCard.repository;
 
 import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.CardStatus;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,4 +25,27 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select c from Card c where c.id = :id")
     Optional<Card> findByIdForSpend(@Param("id") UUID id);
+
+    @Query("select c.version from Card c where c.id = :id")
+    Optional<Long> findVersionById(@Param("id") UUID id);
+
+    @Query("select c.cardStatus from Card c where c.id = :id")
+    Optional<CardStatus> findStatusById(@Param("id") UUID id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Card c set c.cardStatus = :status, c.version = c.version + 1 where c.id in :ids and c.cardStatus in :from")
+    int updateStatus(@Param("ids") Collection<UUID> ids, @Param("from") Collection<CardStatus> from,
+                     @Param("status") CardStatus status);
+
+    @Query("""
+            select c.id from Card c
+            where c.cardStatus in :from
+              and (:createdAfter is null or c.createdAt >= :createdAfter)
+              and (:createdBefore is null or c.createdAt < :createdBefore)
+            order by c.id
+            """)
+    List<UUID> findIdsByStatusAndCreatedAt(@Param("from") Collection<CardStatus> from,
+                                           @Param("createdAfter") LocalDateTime createdAfter,
+                                           @Param("createdBefore") LocalDateTime createdBefore,
+                                           Limit limit);
 }
@@ -0,0 +1,61 @@
+package com.example.virtualCard.repository;
+
+import com.example.virtualCard.entity.CardSummary;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-place increments of a card's summary row. Each one flushes first, so the card row is
+ * always written (and locked) before its summary and concurrent writers cannot deadlock.
+ * The increments return 0 for cards issued before summaries were kept.
+ */
+public interface CardSummaryRepository extends JpaRepository<CardSummary, UUID> {
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            insert into CardSummary (cardId, totalToppedUp, totalSpent, declineCount, lastActivityAt)
+            values (:cardId, 0, 0, 0, :at)
+            """)
+    int open(@Param("cardId") UUID cardId, @Param("at") LocalDateTime at);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            insert into CardSummary (cardId, totalToppedUp, totalSpent, declineCount, lastActivityAt)
+            values (:cardId, :toppedUp, :spent, :declines, :at)
+            on conflict do nothing
+            """)
+    int insert(@Param("cardId") UUID cardId, @Param("toppedUp") BigDecimal toppedUp, @Param("spent") BigDecimal spent,
+               @Param("declines") long declines, @Param("at") LocalDateTime at);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            update CardSummary s set s.totalToppedUp = s.totalToppedUp + :amount, s.lastActivityAt = :at
+            where s.cardId = :cardId
+            """)
+    int recordCredit(@Param("cardId") UUID cardId, @Param("amount") BigDecimal amount, @Param("at") LocalDateTime at);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            update CardSummary s set s.totalSpent = s.totalSpent + :amount, s.lastActivityAt = :at
+            where s.cardId = :cardId
+            """)
+    int recordDebit(@Param("cardId") UUID cardId, @Param("amount") BigDecimal amount, @Param("at") LocalDateTime at);
+
+    @Modifying(flushAutomatically = true)
+    @Query("""
+            update CardSummary s set s.declineCount = s.declineCount + 1, s.lastActivityAt = :at
+            where s.cardId = :cardId
+            """)
+    int recordDecline(@Param("cardId") UUID cardId, @Param("at") LocalDateTime at);
+
+    @Query("select c.id from Card c where not exists (select 1 from CardSummary s where s.cardId = c.id)")
+    List<UUID> findCardIdsWithoutSummary(Limit limit);
+}
@@ -0,0 +1,38 @@
+package com.example.virtualCard.repository;
+
+import com.example.virtualCard.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, UUID> {
+
+    /**
+     * Returns 1 if the key was claimed, 0 if a committed record already holds it. A claim
+     * racing an uncommitted one waits for it instead of failing the persistence context.
+     */
+    @Modifying
+    @Query("""
+            insert into IdempotencyRecord (keyHash, transactionId, expiresAt)
+            values (:keyHash, :transactionId, :expiresAt)
+            on conflict do nothing
+            """)
+    int claim(@Param("keyHash") UUID keyHash, @Param("transactionId") UUID transactionId,
+              @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("update IdempotencyRecord r set r.transactionId = :transactionId where r.keyHash = :keyHash")
+    int reassign(@Param("keyHash") UUID keyHash, @Param("transactionId") UUID transactionId);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.keyHash = :keyHash and r.transactionId = :transactionId")
+    int release(@Param("keyHash") UUID keyHash, @Param("transactionId") UUID transactionId);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -1,13 +1,92 @@
 package com.example.virtualCard.repository;
 
+import com.example.virtualCard.dto.HistoryWatermark;
+import com.example.virtualCard.dto.LedgerMismatch;
+import com.example.virtualCard.dto.LedgerTotals;
+import com.example.virtualCard.dto.SpendSample;
 import com.example.virtualCard.entity.Transaction;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
-public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
+public interface TransactionRepository extends JpaRepository<Transaction, UUID>, TransactionSearchRepository {
     List<Transaction> findByCard_Id(UUID cardId);
-    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+
+    List<Transaction> findByCard_IdOrderByCreatedAt(UUID cardId);
+
+    @Query("""
+            select new com.example.virtualCard.dto.HistoryWatermark(c.version, count(t), max(t.createdAt))
+            from Card c left join Transaction t on t.card = c
+            where c.id = :cardId
+            group by c.id, c.version
+            """)
+    Optional<HistoryWatermark> findHistoryWatermark(@Param("cardId") UUID cardId);
+
+    @Query("""
+            select new com.example.virtualCard.dto.LedgerMismatch(c.id, c.balance,
+                coalesce(sum(case when t.type = :debitType then -t.amount else t.amount end), 0)
+                + coalesce((select sum(case when a.type = :debitType then -a.amount else a.amount end)
+                            from ArchivedTransaction a where a.cardId = c.id and a.status = :settled), 0))
+            from Card c left join Transaction t on t.card = c and t.status = :settled
+            group by c.id, c.balance
+            having c.balance <> coalesce(sum(case when t.type = :debitType then -t.amount else t.amount end), 0)
+                + coalesce((select sum(case when a.type = :debitType then -a.amount else a.amount end)
+                            from ArchivedTransaction a where a.cardId = c.id and a.status = :settled), 0)
+            """)
+    List<LedgerMismatch> findLedgerMismatches(@Param("debitType") TransactionType debitType,
+                                              @Param("settled") TransactionStatus settled);
+
+    @Query("select new com.example.virtualCard.dto.SpendSample(t.card.id, t.amount, t.createdAt) "
+            + "from Transaction t where t.status = :status and t.type = :type and t.createdAt >= :since")
+    List<SpendSample> findSpendSamplesSince(@Param("type") TransactionType type,
+                                            @Param("status") TransactionStatus status,
+                                            @Param("since") LocalDateTime since);
+
+    @Query("select t.id from Transaction t where t.status in :statuses and t.createdAt < :cutoff order by t.createdAt")
+    List<UUID> findArchivableIds(@Param("statuses") Collection<TransactionStatus> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff,
+                                 Limit limit);
+
+    @Query("""
+            select t from Transaction t
+            where t.card.id = :cardId and t.type = :type and t.status = :status and t.counterpartyCardId is not null
+            order by t.createdAt
+            """)
+    List<Transaction> findPendingTransferCredits(@Param("cardId") UUID cardId,
+                                                 @Param("type") TransactionType type,
+                                                 @Param("status") TransactionStatus status,
+                                                 Limit limit);
+
+    @Query("""
+            select t.counterpartyCardId from Transaction t
+            where t.card.id = :cardId and t.type = :type and t.status = :status and t.counterpartyCardId is not null
+            order by t.createdAt
+            """)
+    List<UUID> findPendingTransferSources(@Param("cardId") UUID cardId,
+                                          @Param("type") TransactionType type,
+                                          @Param("status") TransactionStatus status,
+                                          Limit limit);
+
+    @Query("""
+            select new com.example.virtualCard.dto.LedgerTotals(
+                coalesce(sum(case when t.type = :creditType and t.status = :settled then t.amount end), 0),
+                coalesce(sum(case when t.type = :debitType and t.status = :settled then t.amount end), 0),
+                count(case when t.status = :declined then 1 end),
+                max(t.createdAt))
+            from Transaction t where t.card.id = :cardId
+            """)
+    LedgerTotals sumLedger(@Param("cardId") UUID cardId,
+                           @Param("creditType") TransactionType creditType,
+                           @Param("debitType") TransactionType debitType,
+                           @Param("settled") TransactionStatus settled,
+                           @Param("declined") TransactionStatus declined);
 }
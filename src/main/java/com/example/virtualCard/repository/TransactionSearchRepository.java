@@ -0,0 +1,11 @@
+package com.example.virtualCard.repository;
+
+import com.example.virtualCard.dto.SearchCursor;
+import com.example.virtualCard.dto.TransactionSearchCriteria;
+import com.example.virtualCard.entity.Transaction;
+
+import java.util.List;
+
+public interface TransactionSearchRepository {
+    List<Transaction> search(TransactionSearchCriteria criteria, SearchCursor after, int limit);
+}
@@ -0,0 +1,65 @@
+package com.example.virtualCard.repository;
+
+import com.example.virtualCard.dto.SearchCursor;
+import com.example.virtualCard.dto.TransactionSearchCriteria;
+import com.example.virtualCard.entity.Transaction;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class TransactionSearchRepositoryImpl implements TransactionSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Transaction> search(TransactionSearchCriteria criteria, SearchCursor after, int limit) {
+        StringBuilder jpql = new StringBuilder("select t from Transaction t where 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (!criteria.cardIds().isEmpty()) {
+            jpql.append(" and t.card.id in :cardIds");
+            params.put("cardIds", criteria.cardIds());
+        }
+        if (!criteria.statuses().isEmpty()) {
+            jpql.append(" and t.status in :statuses");
+            params.put("statuses", criteria.statuses());
+        }
+        if (!criteria.types().isEmpty()) {
+            jpql.append(" and t.type in :types");
+            params.put("types", criteria.types());
+        }
+        if (criteria.createdFrom() != null) {
+            jpql.append(" and t.createdAt >= :createdFrom");
+            params.put("createdFrom", criteria.createdFrom());
+        }
+        if (criteria.createdTo() != null) {
+            jpql.append(" and t.createdAt < :createdTo");
+            params.put("createdTo", criteria.createdTo());
+        }
+        if (criteria.minAmount() != null) {
+            jpql.append(" and t.amount >= :minAmount");
+            params.put("minAmount", criteria.minAmount());
+        }
+        if (criteria.maxAmount() != null) {
+            jpql.append(" and t.amount <= :maxAmount");
+            params.put("maxAmount", criteria.maxAmount());
+        }
+        if (after != null) {
+            jpql.append(" and (t.createdAt > :afterCreatedAt or (t.createdAt = :afterCreatedAt and t.id > :afterId))");
+            params.put("afterCreatedAt", after.createdAt());
+            params.put("afterId", after.id());
+        }
+        jpql.append(" order by t.createdAt, t.id");
+
+        TypedQuery<Transaction> query = entityManager.createQuery(jpql.toString(), Transaction.class);
+        params.forEach(query::setParameter);
+        return query.setMaxResults(limit).getResultList();
+    }
+}
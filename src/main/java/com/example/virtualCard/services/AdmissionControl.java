@@ -0,0 +1,213 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.AdmissionProperties;
+import com.example.virtualCard.config.RequestTimings;
+import com.example.virtualCard.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admits card write operations before they open a transaction, so requests waiting on a hot
+ * card wait here, briefly and without a connection, instead of on its row lock. Each card
+ * and the service as a whole allow a bounded number of operations in flight and a bounded
+ * queue behind them; anything beyond that, or queued longer than max-queue-wait, is rejected
+ * at once with {@link AdmissionRejectedException}. In-flight limits back off while admitted
+ * operations wait longer than their target and recover additively once waits drop: a card's
+ * limit follows waits on its row lock, the global limit follows waits for a pooled connection,
+ * so one hot card never throttles the others.
+ */
+@Component
+public class AdmissionControl {
+
+    private final AdmissionProperties properties;
+    private final Map<UUID, Gate> cardGates = new ConcurrentHashMap<>();
+    private final Gate globalGate;
+    private final long maxQueueWaitNanos;
+    private final Counter cardRejections;
+    private final Counter globalRejections;
+
+    public AdmissionControl(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.globalGate = new Gate(properties.getGlobalMaxInFlight(), properties.getGlobalMaxQueued(),
+                properties.getTargetConnectionWait().toNanos());
+        this.maxQueueWaitNanos = properties.getMaxQueueWait().toNanos();
+        this.cardRejections = rejectionCounter(meterRegistry, "card");
+        this.globalRejections = rejectionCounter(meterRegistry, "global");
+        Gauge.builder("virtualcard.admission.global.limit", globalGate, Gate::limit).register(meterRegistry);
+    }
+
+    /**
+     * Runs the operation once admitted for the card (null for operations not tied to an
+     * existing card, which only pass the global gate).
+     */
+    public <T> T admit(UUID cardId, Supplier<T> operation) {
+        return admit(cardId == null ? List.of() : List.of(cardId), operation);
+    }
+
+    /**
+     * Runs an operation that locks two cards, such as a transfer, once admitted for both.
+     * A null second card (a pooled destination that is never locked) is not gated.
+     */
+    public <T> T admit(UUID cardId, UUID otherCardId, Supplier<T> operation) {
+        if (otherCardId == null || otherCardId.equals(cardId)) {
+            return admit(cardId, operation);
+        }
+        return admit(cardId.compareTo(otherCardId) < 0 ? List.of(cardId, otherCardId) : List.of(otherCardId, cardId),
+                operation);
+    }
+
+    // Card gates are always entered in card id order, like the row locks they stand in front of.
+    private <T> T admit(List<UUID> cardIds, Supplier<T> operation) {
+        if (!properties.isEnabled()) {
+            return operation.get();
+        }
+        List<Gate> gates = new ArrayList<>(cardIds.size());
+        cardIds.forEach(cardId -> gates.add(enter(cardId)));
+        try {
+            long deadline = System.nanoTime() + maxQueueWaitNanos;
+            try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.ADMISSION)) {
+                for (int i = 0; i < gates.size(); i++) {
+                    if (!gates.get(i).acquire(deadline)) {
+                        gates.subList(0, i).forEach(Gate::cancel);
+                        cardRejections.increment();
+                        throw new AdmissionRejectedException(properties.getRetryAfter());
+                    }
+                }
+                if (!globalGate.acquire(deadline)) {
+                    gates.forEach(Gate::cancel);
+                    globalRejections.increment();
+                    throw new AdmissionRejectedException(properties.getRetryAfter());
+                }
+            }
+            long connectionWaitBefore = RequestTimings.currentNanos(RequestTimings.Phase.CONNECTION);
+            long lockWaitBefore = RequestTimings.currentNanos(RequestTimings.Phase.LOCK);
+            try {
+                return operation.get();
+            } finally {
+                globalGate.release(RequestTimings.currentNanos(RequestTimings.Phase.CONNECTION) - connectionWaitBefore);
+                long lockWait = RequestTimings.currentNanos(RequestTimings.Phase.LOCK) - lockWaitBefore;
+                gates.forEach(gate -> gate.release(lockWait));
+            }
+        } finally {
+            cardIds.forEach(this::exit);
+        }
+    }
+
+    int cardGates() {
+        return cardGates.size();
+    }
+
+    // A card's gate lives while any request holds it, so concurrent requests for one card
+    // always share a gate and idle cards cost nothing.
+    private Gate enter(UUID cardId) {
+        return cardGates.compute(cardId, (id, gate) -> {
+            Gate entered = gate == null
+                    ? new Gate(properties.getPerCardMaxInFlight(), properties.getPerCardMaxQueued(),
+                            properties.getTargetLockWait().toNanos())
+                    : gate;
+            entered.users++;
+            return entered;
+        });
+    }
+
+    private void exit(UUID cardId) {
+        cardGates.computeIfPresent(cardId, (id, gate) -> --gate.users == 0 ? null : gate);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("virtualcard.admission.rejected")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    private final class Gate {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private final int maxInFlight;
+        private final int maxQueued;
+        private final long targetWaitNanos;
+        private volatile double limit;
+        private int inFlight;
+        private int queued;
+        private int users;
+
+        Gate(int maxInFlight, int maxQueued, long targetWaitNanos) {
+            this.maxInFlight = maxInFlight;
+            this.maxQueued = maxQueued;
+            this.targetWaitNanos = targetWaitNanos;
+            this.limit = maxInFlight;
+        }
+
+        double limit() {
+            return limit;
+        }
+
+        boolean acquire(long deadline) {
+            lock.lock();
+            try {
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    return true;
+                }
+                if (queued >= maxQueued) {
+                    return false;
+                }
+                queued++;
+                try {
+                    while (inFlight >= (int) limit) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            return false;
+                        }
+                        released.awaitNanos(remaining);
+                    }
+                    inFlight++;
+                    return true;
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                } finally {
+                    queued--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void cancel() {
+            lock.lock();
+            try {
+                inFlight--;
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(long waitNanos) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (waitNanos > targetWaitNanos) {
+                    limit = Math.max(1, limit * 0.75);
+                } else {
+                    limit = Math.min(maxInFlight, limit + 1 / limit);
+                }
+                released.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.AuditProperties;
+import com.example.virtualCard.dto.AuditEvent;
+import com.example.virtualCard.enums.AuditOutcome;
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.enums.TransactionType;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.SerializableString;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.core.io.SerializedString;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes audit batches. JSON_LINES writes one object per line. BINARY writes length-prefixed
+ * records: int length, long epoch millis, byte outcome, byte type, byte flags (1 counterparty,
+ * 2 decline reason), card id as two longs, optional counterparty id, amount as byte scale plus
+ * length-prefixed unscaled bytes, idempotency key in modified UTF-8, optional decline reason
+ * byte. Enum bytes are ordinals of the current enums.
+ */
+final class AuditEventEncoder {
+
+    private static final SerializableString TIMESTAMP = new SerializedString("ts");
+    private static final SerializableString OUTCOME = new SerializedString("outcome");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString CARD_ID = new SerializedString("cardId");
+    private static final SerializableString COUNTERPARTY_CARD_ID = new SerializedString("counterpartyCardId");
+    private static final SerializableString AMOUNT = new SerializedString("amount");
+    private static final SerializableString IDEMPOTENCY_KEY = new SerializedString("idempotencyKey");
+    private static final SerializableString DECLINE_REASON = new SerializedString("declineReason");
+
+    private static final int HAS_COUNTERPARTY = 1;
+    private static final int HAS_DECLINE_REASON = 2;
+
+    private final AuditProperties.Format format;
+    private final ObjectWriter jsonWriter;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(128);
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    AuditEventEncoder(AuditProperties.Format format, ObjectMapper objectMapper) {
+        this.format = format;
+        this.jsonWriter = objectMapper.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+    }
+
+    void write(List<AuditEvent> batch, OutputStream out) throws IOException {
+        if (format == AuditProperties.Format.BINARY) {
+            DataOutputStream data = new DataOutputStream(out);
+            for (AuditEvent event : batch) {
+                writeBinary(event, data);
+            }
+            return;
+        }
+        try (JsonGenerator generator = jsonWriter.createGenerator(out)) {
+            for (AuditEvent event : batch) {
+                writeJson(event, generator);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private static void writeJson(AuditEvent event, JsonGenerator generator) {
+        generator.writeStartObject();
+        generator.writeName(TIMESTAMP);
+        generator.writeNumber(event.timestamp());
+        generator.writeName(OUTCOME);
+        generator.writeString(event.outcome().name());
+        generator.writeName(TYPE);
+        generator.writeString(event.type().name());
+        generator.writeName(CARD_ID);
+        generator.writeString(event.cardId().toString());
+        if (event.counterpartyCardId() != null) {
+            generator.writeName(COUNTERPARTY_CARD_ID);
+            generator.writeString(event.counterpartyCardId().toString());
+        }
+        generator.writeName(AMOUNT);
+        generator.writeNumber(event.amount());
+        generator.writeName(IDEMPOTENCY_KEY);
+        generator.writeString(event.idempotencyKey());
+        if (event.declineReason() != null) {
+            generator.writeName(DECLINE_REASON);
+            generator.writeString(event.declineReason().name());
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeBinary(AuditEvent event, DataOutputStream out) throws IOException {
+        record.reset();
+        recordOut.writeLong(event.timestamp());
+        recordOut.writeByte(event.outcome().ordinal());
+        recordOut.writeByte(event.type().ordinal());
+        recordOut.writeByte((event.counterpartyCardId() != null ? HAS_COUNTERPARTY : 0)
+                | (event.declineReason() != null ? HAS_DECLINE_REASON : 0));
+        writeUuid(event.cardId());
+        if (event.counterpartyCardId() != null) {
+            writeUuid(event.counterpartyCardId());
+        }
+        byte[] unscaled = event.amount().unscaledValue().toByteArray();
+        if (unscaled.length > 0xFF || event.amount().scale() != (byte) event.amount().scale()) {
+            throw new IllegalArgumentException("Amount does not fit a binary audit record: " + event.amount());
+        }
+        recordOut.writeByte(event.amount().scale());
+        recordOut.writeByte(unscaled.length);
+        recordOut.write(unscaled);
+        recordOut.writeUTF(event.idempotencyKey());
+        if (event.declineReason() != null) {
+            recordOut.writeByte(event.declineReason().ordinal());
+        }
+        out.writeInt(record.size());
+        record.writeTo(out);
+    }
+
+    private void writeUuid(UUID id) throws IOException {
+        recordOut.writeLong(id.getMostSignificantBits());
+        recordOut.writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Reads the next BINARY record, or returns null at end of stream.
+     */
+    static AuditEvent readBinary(DataInputStream in) throws IOException {
+        try {
+            in.readInt();
+        } catch (EOFException ex) {
+            return null;
+        }
+        long timestamp = in.readLong();
+        AuditOutcome outcome = AuditOutcome.values()[in.readByte()];
+        TransactionType type = TransactionType.values()[in.readByte()];
+        int flags = in.readByte();
+        UUID cardId = new UUID(in.readLong(), in.readLong());
+        UUID counterparty = (flags & HAS_COUNTERPARTY) != 0 ? new UUID(in.readLong(), in.readLong()) : null;
+        int scale = in.readByte();
+        byte[] unscaled = new byte[in.readUnsignedByte()];
+        in.readFully(unscaled);
+        String idempotencyKey = in.readUTF();
+        DeclineReason reason = (flags & HAS_DECLINE_REASON) != 0 ? DeclineReason.values()[in.readByte()] : null;
+        return new AuditEvent(timestamp, outcome, type, cardId, counterparty,
+                new BigDecimal(new BigInteger(unscaled), scale), idempotencyKey, reason);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.virtualCard.services;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The audit file the writer appends to. Once an append leaves it at max-file-size or larger it
+ * is renamed to path.1, older files move up by one and the one past max-history is deleted.
+ * Rotation happens between batches, so no record is split across files.
+ * <p>
+ * A failed append closes the file. The next append reopens it and first truncates whatever the
+ * failed one left past the last complete batch, so retrying a batch never leaves a torn record.
+ */
+final class AuditFile implements Closeable {
+
+    private final Path path;
+    private final long maxBytes;
+    private final int maxHistory;
+    private FileChannel channel;
+    private OutputStream out;
+    private long committed = -1;
+
+    AuditFile(Path path, long maxBytes, int maxHistory) {
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxHistory = maxHistory;
+    }
+
+    void append(ByteArrayOutputStream bytes) throws IOException {
+        if (out == null) {
+            open();
+        }
+        try {
+            bytes.writeTo(out);
+            out.flush();
+            committed = channel.size();
+        } catch (IOException ex) {
+            discard();
+            throw ex;
+        }
+    }
+
+    void rotateIfFull() throws IOException {
+        if (out == null || maxBytes <= 0 || committed < maxBytes) {
+            return;
+        }
+        discard();
+        for (int i = maxHistory; i > 1; i--) {
+            Path older = rotated(i - 1);
+            if (Files.exists(older)) {
+                Files.move(older, rotated(i), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (maxHistory > 0) {
+            Files.move(path, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.delete(path);
+        }
+        committed = 0;
+        open();
+    }
+
+    private Path rotated(int generation) {
+        return path.resolveSibling(path.getFileName() + "." + generation);
+    }
+
+    private void open() throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        FileChannel opened = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            long size = opened.size();
+            committed = committed < 0 ? size : Math.min(committed, size);
+            if (size > committed) {
+                opened.truncate(committed);
+            }
+            opened.position(committed);
+        } catch (IOException ex) {
+            opened.close();
+            throw ex;
+        }
+        channel = opened;
+        out = new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024);
+    }
+
+    // Closes the channel rather than the stream so a failed flush is not attempted again.
+    private void discard() {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the file is reopened on the next append
+        }
+        channel = null;
+        out = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.AuditProperties;
+import com.example.virtualCard.dto.AuditEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Audit trail of card operations, kept off the request path. Events are published only once
+ * the surrounding transaction commits, so nothing is written while the card row is locked and
+ * rolled-back work is never audited. Publishing puts the event in a lock-free ring; a single
+ * writer thread drains it in batches and appends them to the audit file. An event that cannot be
+ * encoded is dropped on its own; a failed write keeps the batch and retries it with backoff while
+ * the ring absorbs new events, so a full disk costs at most what overflows the ring.
+ */
+@Component
+public class AuditLog {
+    private static final Logger log = LoggerFactory.getLogger(AuditLog.class);
+    private static final long MIN_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long MAX_RETRY_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final AuditProperties properties;
+    private final AuditRingBuffer ring;
+    private final AuditEventEncoder encoder;
+    private final long maxBlockNanos;
+    private final Counter published;
+    private final Counter dropped;
+    private final Counter written;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AuditLog(AuditProperties properties, MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.ring = new AuditRingBuffer(properties.getBufferSize());
+        this.encoder = new AuditEventEncoder(properties.getFormat(), objectMapper);
+        this.maxBlockNanos = properties.getMaxBlock().toNanos();
+        this.published = eventCounter(meterRegistry, "published");
+        this.dropped = eventCounter(meterRegistry, "dropped");
+        this.written = eventCounter(meterRegistry, "written");
+        Gauge.builder("virtualcard.audit.buffer.depth", ring, AuditRingBuffer::size).register(meterRegistry);
+        if (properties.isEnabled()) {
+            this.writer = Thread.ofPlatform().name("audit-writer").daemon().start(this::drainLoop);
+        } else {
+            this.writer = null;
+        }
+    }
+
+    public void record(AuditEvent event) {
+        if (writer == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    private void publish(AuditEvent event) {
+        if (ring.offer(event) || (properties.getOverflowPolicy() == AuditProperties.OverflowPolicy.BLOCK && offerWithin(event))) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private boolean offerWithin(AuditEvent event) {
+        long deadline = System.nanoTime() + maxBlockNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            if (ring.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void drainLoop() {
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        List<AuditEvent> batch = new ArrayList<>(properties.getBatchSize());
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(64 * 1024);
+        AuditFile file = new AuditFile(properties.getPath(), properties.getMaxFileSize().toBytes(),
+                properties.getMaxHistory());
+        int pending = 0;
+        boolean failing = false;
+        long retryNanos = MIN_RETRY_NANOS;
+        while (true) {
+            if (pending == 0) {
+                if (ring.drainTo(batch, properties.getBatchSize()) == 0) {
+                    if (!running) {
+                        break;
+                    }
+                    LockSupport.parkNanos(flushIntervalNanos);
+                    continue;
+                }
+                pending = encode(batch, encoded);
+                batch.clear();
+                if (pending == 0) {
+                    continue;
+                }
+            }
+            try {
+                file.append(encoded);
+            } catch (IOException ex) {
+                if (!running) {
+                    dropped.increment(pending + discardRing(batch));
+                    log.error("Audit writer stopped before the audit file became writable again", ex);
+                    break;
+                }
+                if (!failing) {
+                    failing = true;
+                    log.error("Audit file write failed, retrying the batch until it succeeds", ex);
+                }
+                LockSupport.parkNanos(retryNanos);
+                retryNanos = Math.min(retryNanos * 2, MAX_RETRY_NANOS);
+                continue;
+            }
+            written.increment(pending);
+            pending = 0;
+            encoded.reset();
+            if (failing) {
+                failing = false;
+                retryNanos = MIN_RETRY_NANOS;
+                log.info("Audit file writes resumed");
+            }
+            try {
+                file.rotateIfFull();
+            } catch (IOException ex) {
+                log.warn("Audit file rotation failed, appending to the current file", ex);
+            }
+        }
+        try {
+            file.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close the audit file", ex);
+        }
+    }
+
+    // Encodes the batch into the buffer. An event the encoder rejects is logged and dropped on its
+    // own instead of taking the rest of the batch with it.
+    private int encode(List<AuditEvent> batch, ByteArrayOutputStream encoded) {
+        try {
+            encoder.write(batch, encoded);
+            return batch.size();
+        } catch (IOException | RuntimeException ex) {
+            encoded.reset();
+        }
+        int accepted = 0;
+        ByteArrayOutputStream single = new ByteArrayOutputStream(256);
+        for (AuditEvent event : batch) {
+            single.reset();
+            try {
+                encoder.write(List.of(event), single);
+                single.writeTo(encoded);
+                accepted++;
+            } catch (IOException | RuntimeException ex) {
+                dropped.increment();
+                log.warn("Dropping {} {} audit event for card {} that cannot be encoded",
+                        event.outcome(), event.type(), event.cardId(), ex);
+            }
+        }
+        return accepted;
+    }
+
+    private int discardRing(List<AuditEvent> batch) {
+        int discarded = 0;
+        batch.clear();
+        for (int drained; (drained = ring.drainTo(batch, properties.getBatchSize())) > 0; batch.clear()) {
+            discarded += drained;
+        }
+        return discarded;
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("virtualcard.audit.events")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (writer != null) {
+            running = false;
+            LockSupport.unpark(writer);
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.dto.AuditEvent;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer, single-consumer ring. Producers claim a sequence with one CAS and
+ * then fill its slot; the consumer takes slots in sequence order and stops at the first one
+ * not yet filled, so events are drained in claim order without locks.
+ */
+final class AuditRingBuffer {
+
+    private final AtomicReferenceArray<AuditEvent> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    AuditRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    boolean offer(AuditEvent event) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.set((int) (sequence & mask), event);
+        return true;
+    }
+
+    /**
+     * Moves up to {@code max} events into {@code batch}. Only the writer thread may call this.
+     */
+    int drainTo(List<AuditEvent> batch, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) (position & mask);
+            AuditEvent event = slots.get(slot);
+            if (event == null) {
+                break;
+            }
+            slots.lazySet(slot, null);
+            batch.add(event);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.IssuanceProperties;
+import com.example.virtualCard.config.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Card ids drawn ahead of time, per shard. An id for a given shard takes several
+ * {@link UUID#randomUUID()} draws on average, each one hitting the shared SecureRandom, so
+ * issuance takes ids from a pool that a background thread keeps topped up. When a burst
+ * drains a shard's pool, ids are generated inline until the refill catches up.
+ */
+@Component
+public class CardIdPool {
+    private static final Logger log = LoggerFactory.getLogger(CardIdPool.class);
+
+    private final ShardRouter shardRouter;
+    private final List<ArrayBlockingQueue<UUID>> pools;
+    private final ScheduledExecutorService scheduler;
+
+    public CardIdPool(ShardRouter shardRouter, IssuanceProperties properties) {
+        this.shardRouter = shardRouter;
+        this.pools = new ArrayList<>();
+        int poolSize = properties.getIdPoolSize();
+        if (poolSize > 0) {
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                pools.add(new ArrayBlockingQueue<>(poolSize));
+            }
+            refill();
+            long interval = properties.getRefillInterval().toMillis();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("card-id-pool").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::refillSafely, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public UUID take(int shard) {
+        UUID id = pools.isEmpty() ? null : pools.get(shard).poll();
+        return id != null ? id : shardRouter.newCardId(shard);
+    }
+
+    public int available(int shard) {
+        return pools.isEmpty() ? 0 : pools.get(shard).size();
+    }
+
+    void refill() {
+        for (int shard = 0; shard < pools.size(); shard++) {
+            ArrayBlockingQueue<UUID> pool = pools.get(shard);
+            while (pool.remainingCapacity() > 0) {
+                pool.offer(shardRouter.newCardId(shard));
+            }
+        }
+    }
+
+    private void refillSafely() {
+        try {
+            refill();
+        } catch (RuntimeException ex) {
+            log.warn("Card id pool refill failed: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
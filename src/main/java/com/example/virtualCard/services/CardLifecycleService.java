@@ -0,0 +1,106 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.LifecycleProperties;
+import com.example.virtualCard.config.ShardContext;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.dto.BulkStatusChangeResponse;
+import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.repository.CardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk status changes run as set-based UPDATEs, one short transaction per chunk, so at most a
+ * chunk's worth of row locks is held at a time. Each update bumps {@code @Version}: a spend
+ * holding the row lock finishes first and the update then applies, while a topup that read
+ * the card before the change fails its optimistic check instead of crediting a blocked card.
+ */
+@Service
+public class CardLifecycleService {
+    private static final Logger log = LoggerFactory.getLogger(CardLifecycleService.class);
+
+    private static final Map<CardStatus, Set<CardStatus>> ALLOWED_SOURCES = Map.of(
+            CardStatus.BLOCKED, Set.of(CardStatus.ACTIVE),
+            CardStatus.CLOSED, Set.of(CardStatus.ACTIVE, CardStatus.BLOCKED)
+    );
+
+    private final CardRepository cardRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public CardLifecycleService(
+            CardRepository cardRepository,
+            ShardRouter shardRouter,
+            TransactionTemplate transactionTemplate,
+            LifecycleProperties properties
+    ) {
+        this.cardRepository = cardRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = properties.getChunkSize();
+    }
+
+    public BulkStatusChangeResponse changeStatus(List<UUID> cardIds, CardStatus status) {
+        Set<CardStatus> from = allowedSources(status);
+        Map<Integer, List<UUID>> byShard = new LinkedHashSet<>(cardIds).stream()
+                .collect(Collectors.groupingBy(shardRouter::shardOf));
+
+        BulkStatusChangeResponse total = new BulkStatusChangeResponse(status, 0, 0, 0);
+        for (Map.Entry<Integer, List<UUID>> shard : byShard.entrySet()) {
+            try (ShardContext.Scope ignored = ShardContext.bind(shard.getKey())) {
+                List<UUID> ids = shard.getValue();
+                for (int start = 0; start < ids.size(); start += chunkSize) {
+                    List<UUID> chunk = ids.subList(start, Math.min(start + chunkSize, ids.size()));
+                    total = total.plus(new BulkStatusChangeResponse(status, chunk.size(), updateChunk(chunk, from, status), 1));
+                }
+            }
+        }
+        log.info("Bulk status change to {} matched={} updated={} chunks={}",
+                status, total.matched(), total.updated(), total.chunks());
+        return total;
+    }
+
+    public BulkStatusChangeResponse changeStatusWhere(CardStatus status, LocalDateTime createdAfter, LocalDateTime createdBefore) {
+        Set<CardStatus> from = allowedSources(status);
+        BulkStatusChangeResponse total = shardRouter.fanOut(() -> {
+                    BulkStatusChangeResponse shardTotal = new BulkStatusChangeResponse(status, 0, 0, 0);
+                    List<UUID> chunk = cardRepository.findIdsByStatusAndCreatedAt(from, createdAfter, createdBefore, Limit.of(chunkSize));
+                    while (!chunk.isEmpty()) {
+                        shardTotal = shardTotal.plus(new BulkStatusChangeResponse(status, chunk.size(), updateChunk(chunk, from, status), 1));
+                        chunk = cardRepository.findIdsByStatusAndCreatedAt(from, createdAfter, createdBefore, Limit.of(chunkSize));
+                    }
+                    return shardTotal;
+                })
+                .stream()
+                .reduce(new BulkStatusChangeResponse(status, 0, 0, 0), BulkStatusChangeResponse::plus);
+        log.info("Bulk status change to {} by filter createdAfter={} createdBefore={} matched={} updated={} chunks={}",
+                status, createdAfter, createdBefore, total.matched(), total.updated(), total.chunks());
+        return total;
+    }
+
+    private int updateChunk(List<UUID> chunk, Set<CardStatus> from, CardStatus status) {
+        Integer updated = transactionTemplate.execute(tx -> cardRepository.updateStatus(new ArrayList<>(chunk), from, status));
+        return updated == null ? 0 : updated;
+    }
+
+    private static Set<CardStatus> allowedSources(CardStatus status) {
+        Set<CardStatus> from = ALLOWED_SOURCES.get(status);
+        if (from == null) {
+            throw new IllegalArgumentException("status must be BLOCKED or CLOSED");
+        }
+        return from;
+    }
+}
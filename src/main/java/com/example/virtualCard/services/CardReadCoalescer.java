@@ -0,0 +1,103 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.CoalescingProperties;
+import com.example.virtualCard.config.ReadConsistency;
+import com.example.virtualCard.entity.Card;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight card lookups: a caller that finds a query for the same card already running
+ * waits (up to max-wait) for that query's result instead of issuing its own. Nothing is kept
+ * after the query finishes, so a result is never older than the in-flight window. Only
+ * callers outside a transaction share queries, and what they share is a detached card; a
+ * card loaded inside a transaction belongs to that transaction's persistence context and is
+ * never handed to another thread. Callers carrying a read-your-writes token always query
+ * themselves.
+ */
+@Component
+public class CardReadCoalescer {
+
+    private final Map<UUID, CompletableFuture<Card>> inFlight = new ConcurrentHashMap<>();
+    private final long maxWaitMillis;
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter timeouts;
+
+    public CardReadCoalescer(MeterRegistry meterRegistry, CoalescingProperties properties) {
+        this.maxWaitMillis = properties.getMaxWait().toMillis();
+        this.leaders = readCounter(meterRegistry, "leader");
+        this.followers = readCounter(meterRegistry, "coalesced");
+        this.timeouts = readCounter(meterRegistry, "wait_timeout");
+        Gauge.builder("virtualcard.card.reads.coalescing.ratio", this, CardReadCoalescer::coalescingRatio)
+                .register(meterRegistry);
+    }
+
+    public Card load(UUID cardId, Supplier<Card> query) {
+        if (ReadConsistency.requiredTimestamp() != null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            leaders.increment();
+            return query.get();
+        }
+
+        CompletableFuture<Card> mine = new CompletableFuture<>();
+        CompletableFuture<Card> running = inFlight.putIfAbsent(cardId, mine);
+        if (running != null) {
+            return join(running, query);
+        }
+
+        leaders.increment();
+        try {
+            Card card = query.get();
+            mine.complete(card);
+            return card;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(cardId, mine);
+        }
+    }
+
+    double coalescingRatio() {
+        double total = leaders.count() + followers.count();
+        return total == 0 ? 0 : followers.count() / total;
+    }
+
+    private Card join(CompletableFuture<Card> running, Supplier<Card> query) {
+        try {
+            Card card = running.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+            followers.increment();
+            return card;
+        } catch (TimeoutException ex) {
+            timeouts.increment();
+            return query.get();
+        } catch (ExecutionException ex) {
+            followers.increment();
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for card lookup", ex);
+        }
+    }
+
+    private static Counter readCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("virtualcard.card.reads")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
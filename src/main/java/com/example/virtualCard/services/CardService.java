@@ -1,137 +1,295 @@
 package com.example.virtualCard.services;
 
+import com.example.virtualCard.config.RequestTimings;
+import com.example.virtualCard.config.ShardContext;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.config.TransferProperties;
+import com.example.virtualCard.dto.AuditEvent;
+import com.example.virtualCard.dto.CardOperationResult;
 import com.example.virtualCard.entity.Card;
 import com.example.virtualCard.entity.Transaction;
 import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.enums.DeclineReason;
 import com.example.virtualCard.enums.TransactionStatus;
 import com.example.virtualCard.enums.TransactionType;
 import com.example.virtualCard.exception.CardNotActiveException;
 import com.example.virtualCard.exception.CardNotFoundException;
-import com.example.virtualCard.exception.IdempotencyInProgressException;
-import com.example.virtualCard.exception.InsufficientBalanceException;
+import com.example.virtualCard.exception.CrossShardTransferException;
 import com.example.virtualCard.repository.CardRepository;
 import com.example.virtualCard.repository.TransactionRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.Objects;
 import java.util.UUID;
 
 @Service
 public class CardService {
-    private static final Logger log = LoggerFactory.getLogger(CardService.class);
-
     private final CardRepository cardRepository;
+    private final CardSummaryTracker cardSummaryTracker;
     private final TransactionRepository transactionRepository;
     private final IdempotencyService idempotencyService;
+    private final ShardRouter shardRouter;
+    private final SpendVelocityTracker spendVelocityTracker;
+    private final CardReadCoalescer cardReadCoalescer;
+    private final TransferProperties transferProperties;
+    private final CardIdPool cardIdPool;
+    private final AuditLog auditLog;
 
     public CardService(
             CardRepository cardRepository,
+            CardSummaryTracker cardSummaryTracker,
             TransactionRepository transactionRepository,
-            IdempotencyService idempotencyService
+            IdempotencyService idempotencyService,
+            ShardRouter shardRouter,
+            SpendVelocityTracker spendVelocityTracker,
+            CardReadCoalescer cardReadCoalescer,
+            TransferProperties transferProperties,
+            CardIdPool cardIdPool,
+            AuditLog auditLog
     ) {
         this.cardRepository = cardRepository;
+        this.cardSummaryTracker = cardSummaryTracker;
         this.transactionRepository = transactionRepository;
         this.idempotencyService = idempotencyService;
+        this.shardRouter = shardRouter;
+        this.spendVelocityTracker = spendVelocityTracker;
+        this.cardReadCoalescer = cardReadCoalescer;
+        this.transferProperties = transferProperties;
+        this.cardIdPool = cardIdPool;
+        this.auditLog = auditLog;
     }
 
     @Transactional
-    public Card createCard(String name, BigDecimal amount, String idempotencyKey) {
+    public CardOperationResult createCard(String name, BigDecimal amount, String idempotencyKey) {
         requireNonNegativeAmount(amount, "initialBalance");
-        Transaction existing = transactionRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
-        if (existing != null) {
-            return idempotencyService.replayCreate(existing, name, amount);
+        RequestTimings.timeCommit();
+        try (ShardContext.Scope ignored = shardRouter.bindKey(idempotencyKey)) {
+            return issueCard(name, amount, idempotencyKey);
         }
+    }
 
-        Card card = cardRepository.save(new Card(name, amount));
-        Transaction issuance;
-        try {
-            issuance = idempotencyService.reserveIdempotencyKey(card, TransactionType.ISSUANCE, amount, idempotencyKey);
-        } catch (IdempotencyInProgressException ex) {
-            cardRepository.delete(card);
-            throw ex;
+    private CardOperationResult issueCard(String name, BigDecimal amount, String idempotencyKey) {
+        Transaction existing = idempotencyService.findExisting(null, idempotencyKey).orElse(null);
+        if (existing != null) {
+            return idempotencyService.replayCreate(existing, name, amount);
         }
 
-        if (!Objects.equals(issuance.getCard().getId(), card.getId())) {
-            cardRepository.delete(card);
-            return idempotencyService.replayCreate(issuance, name, amount);
+        IdempotencyService.Reservation reservation = idempotencyService.reserveIssuanceKey(idempotencyKey);
+        if (!reservation.acquired()) {
+            return idempotencyService.replayCreate(reservation.transaction(), name, amount);
         }
 
-        issuance.setStatus(TransactionStatus.SUCCESS);
-        transactionRepository.save(issuance);
+        Card card = new Card(name, amount);
+        card.setId(cardIdPool.take(shardRouter.shardOfKey(idempotencyKey)));
+        card = cardRepository.save(card);
+        Transaction issuance =
+                new Transaction(card, TransactionType.ISSUANCE, amount, TransactionStatus.SUCCESS, idempotencyKey);
+        issuance.setBalanceAfter(card.getBalance());
+        idempotencyService.bindIssuance(transactionRepository.save(issuance));
+        cardSummaryTracker.open(card.getId(), card.getCreatedAt());
 
-        log.info("Issued card {} with idempotencyKey={}", card.getId(), idempotencyKey);
-        return card;
+        auditLog.record(AuditEvent.applied(TransactionType.ISSUANCE, card.getId(), null, amount, idempotencyKey));
+        return CardOperationResult.success(card);
     }
 
+    // No transaction here: callers waiting on a coalesced lookup should not hold a
+    // connection, and findById runs in the repository's own read-only transaction.
     public Card getCard(UUID id) {
-        return cardRepository.findById(id).orElseThrow(CardNotFoundException::new);
+        try (ShardContext.Scope ignored = shardRouter.bindCard(id)) {
+            return cardReadCoalescer.load(id, () -> cardRepository.findById(id).orElseThrow(CardNotFoundException::new));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long getCardVersion(UUID id) {
+        try (ShardContext.Scope ignored = shardRouter.bindCard(id)) {
+            return cardRepository.findVersionById(id).orElseThrow(CardNotFoundException::new);
+        }
     }
 
     @Transactional
-    public Card topup(UUID cardId, BigDecimal amount, String idempotencyKey) {
+    public CardOperationResult topup(UUID cardId, BigDecimal amount, String idempotencyKey) {
         requirePositiveAmount(amount);
-        Transaction existing = transactionRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
+        RequestTimings.timeCommit();
+        try (ShardContext.Scope ignored = shardRouter.bindCard(cardId)) {
+            return applyTopup(cardId, amount, idempotencyKey);
+        }
+    }
+
+    private CardOperationResult applyTopup(UUID cardId, BigDecimal amount, String idempotencyKey) {
+        Transaction existing = idempotencyService.findExisting(cardId, idempotencyKey).orElse(null);
         if (existing != null) {
             return idempotencyService.replayTopup(existing, cardId, amount);
         }
 
-        Card card = cardRepository.findByIdForTopup(cardId).orElseThrow(CardNotFoundException::new);
+        Card card;
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.LOCK)) {
+            card = cardRepository.findByIdForTopup(cardId).orElseThrow(CardNotFoundException::new);
+        }
         ensureCardActive(card);
 
-        Transaction topupTransaction = idempotencyService.reserveIdempotencyKey(card, TransactionType.TOPUP, amount, idempotencyKey);
-        if (topupTransaction.getStatus() != TransactionStatus.PENDING) {
-            return idempotencyService.replayTopup(topupTransaction, cardId, amount);
+        IdempotencyService.Reservation reservation =
+                idempotencyService.reserveIdempotencyKey(card, TransactionType.TOPUP, amount, idempotencyKey);
+        if (!reservation.acquired()) {
+            return idempotencyService.replayTopup(reservation.transaction(), cardId, amount);
         }
+        Transaction topupTransaction = reservation.transaction();
 
         card.credit(amount);
         cardRepository.save(card);
 
         topupTransaction.setStatus(TransactionStatus.SUCCESS);
+        topupTransaction.setBalanceAfter(card.getBalance());
         transactionRepository.save(topupTransaction);
+        cardSummaryTracker.recordCredit(cardId, amount);
 
-        log.info("Topup success cardId={} amount={} idempotencyKey={}", cardId, amount, idempotencyKey);
-        return card;
+        auditLog.record(AuditEvent.applied(TransactionType.TOPUP, cardId, null, amount, idempotencyKey));
+        return CardOperationResult.success(card);
     }
 
-    @Transactional(noRollbackFor = InsufficientBalanceException.class)
-    public Card spend(UUID cardId, BigDecimal amount, String idempotencyKey) {
+    @Transactional
+    public CardOperationResult spend(UUID cardId, BigDecimal amount, String idempotencyKey) {
         requirePositiveAmount(amount);
-        Transaction existing = transactionRepository.findByIdempotencyKey(idempotencyKey).orElse(null);
+        RequestTimings.timeCommit();
+        try (ShardContext.Scope ignored = shardRouter.bindCard(cardId)) {
+            return applySpend(cardId, amount, idempotencyKey);
+        }
+    }
+
+    private CardOperationResult applySpend(UUID cardId, BigDecimal amount, String idempotencyKey) {
+        Transaction existing = idempotencyService.findExisting(cardId, idempotencyKey).orElse(null);
         if (existing != null) {
             return idempotencyService.replaySpend(existing, cardId, amount);
         }
 
-        Card card = cardRepository.findByIdForSpend(cardId).orElseThrow(CardNotFoundException::new);
+        Card card;
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.LOCK)) {
+            card = cardRepository.findByIdForSpend(cardId).orElseThrow(CardNotFoundException::new);
+        }
         ensureCardActive(card);
 
-        Transaction spendTransaction = idempotencyService.reserveIdempotencyKey(card, TransactionType.SPEND, amount, idempotencyKey);
-        if (spendTransaction.getStatus() != TransactionStatus.PENDING) {
-            return idempotencyService.replaySpend(spendTransaction, cardId, amount);
+        IdempotencyService.Reservation reservation =
+                idempotencyService.reserveIdempotencyKey(card, TransactionType.SPEND, amount, idempotencyKey);
+        if (!reservation.acquired()) {
+            return idempotencyService.replaySpend(reservation.transaction(), cardId, amount);
+        }
+        CardOperationResult declined = debit(card, reservation.transaction(), amount, idempotencyKey);
+        if (declined != null) {
+            return declined;
+        }
+
+        auditLog.record(AuditEvent.applied(TransactionType.SPEND, cardId, null, amount, idempotencyKey));
+        return CardOperationResult.success(card);
+    }
+
+    /**
+     * Moves funds between two cards on the same shard in one transaction, under one
+     * idempotency key scoped to the source card. Both rows are locked in card id order, so
+     * transfers running in opposite directions cannot deadlock. A pooled destination is not
+     * locked at all: its TOPUP leg is left PENDING and credited in batches by
+     * {@link PooledCreditSettler}, so payouts into it only contend on their source cards.
+     */
+    @Transactional
+    public CardOperationResult transfer(UUID sourceCardId, UUID destinationCardId, BigDecimal amount, String idempotencyKey) {
+        requirePositiveAmount(amount);
+        if (sourceCardId.equals(destinationCardId)) {
+            throw new IllegalArgumentException("cannot transfer to the same card");
+        }
+        if (shardRouter.shardOf(sourceCardId) != shardRouter.shardOf(destinationCardId)) {
+            throw new CrossShardTransferException();
+        }
+        RequestTimings.timeCommit();
+        try (ShardContext.Scope ignored = shardRouter.bindCard(sourceCardId)) {
+            return applyTransfer(sourceCardId, destinationCardId, amount, idempotencyKey);
+        }
+    }
+
+    private CardOperationResult applyTransfer(UUID sourceCardId, UUID destinationCardId, BigDecimal amount,
+                                              String idempotencyKey) {
+        Transaction existing = idempotencyService.findExisting(sourceCardId, idempotencyKey).orElse(null);
+        if (existing != null) {
+            return idempotencyService.replayTransfer(existing, sourceCardId, destinationCardId, amount);
         }
 
-        try {
-            card.debit(amount);
-        } catch (IllegalStateException ex) {
-            if (!"Insufficient balance".equals(ex.getMessage())) {
-                throw ex;
+        boolean pooled = transferProperties.isPooled(destinationCardId);
+        Card source;
+        Card destination;
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.LOCK)) {
+            if (pooled) {
+                source = cardRepository.findByIdForSpend(sourceCardId).orElseThrow(CardNotFoundException::new);
+                destination = cardRepository.findById(destinationCardId).orElseThrow(CardNotFoundException::new);
+            } else if (sourceCardId.compareTo(destinationCardId) < 0) {
+                source = cardRepository.findByIdForSpend(sourceCardId).orElseThrow(CardNotFoundException::new);
+                destination = cardRepository.findByIdForSpend(destinationCardId).orElseThrow(CardNotFoundException::new);
+            } else {
+                destination = cardRepository.findByIdForSpend(destinationCardId).orElseThrow(CardNotFoundException::new);
+                source = cardRepository.findByIdForSpend(sourceCardId).orElseThrow(CardNotFoundException::new);
             }
-            spendTransaction.setStatus(TransactionStatus.DECLINED);
+        }
+        ensureCardActive(source);
+        ensureCardActive(destination);
+
+        IdempotencyService.Reservation reservation = idempotencyService.reserveIdempotencyKey(
+                source, TransactionType.SPEND, amount, idempotencyKey, destinationCardId);
+        if (!reservation.acquired()) {
+            return idempotencyService.replayTransfer(reservation.transaction(), sourceCardId, destinationCardId, amount);
+        }
+        CardOperationResult declined = debit(source, reservation.transaction(), amount, idempotencyKey);
+        if (declined != null) {
+            return declined;
+        }
+
+        Transaction credit = new Transaction(destination, TransactionType.TOPUP, amount,
+                pooled ? TransactionStatus.PENDING : TransactionStatus.SUCCESS, idempotencyKey, sourceCardId);
+        if (!pooled) {
+            destination.credit(amount);
+            cardRepository.save(destination);
+            credit.setBalanceAfter(destination.getBalance());
+        }
+        transactionRepository.save(credit);
+        if (!pooled) {
+            cardSummaryTracker.recordCredit(destinationCardId, amount);
+        }
+
+        auditLog.record(AuditEvent.applied(TransactionType.SPEND, sourceCardId, destinationCardId, amount, idempotencyKey));
+        return CardOperationResult.success(source);
+    }
+
+    /**
+     * Debits the locked card and settles its reserved SPEND row, or records the decline.
+     * Returns the decline outcome, or null once the card has been debited.
+     */
+    private CardOperationResult debit(Card card, Transaction spendTransaction, BigDecimal amount, String idempotencyKey) {
+        UUID cardId = card.getId();
+        SpendVelocityTracker.Reservation velocity = spendVelocityTracker.tryAcquire(cardId, amount);
+        if (!velocity.acquired()) {
+            spendTransaction.decline(DeclineReason.VELOCITY_LIMIT);
+            spendTransaction.setBalanceAfter(card.getBalance());
             transactionRepository.save(spendTransaction);
-            log.warn("Spend declined cardId={} amount={} idempotencyKey={} reason=INSUFFICIENT_BALANCE",
-                    cardId, amount, idempotencyKey);
-            throw new InsufficientBalanceException();
+            cardSummaryTracker.recordDecline(cardId);
+            auditLog.record(AuditEvent.declined(cardId, spendTransaction.getCounterpartyCardId(), amount, idempotencyKey,
+                    DeclineReason.VELOCITY_LIMIT));
+            return CardOperationResult.declined(DeclineReason.VELOCITY_LIMIT);
+        }
+
+        if (!card.tryDebit(amount)) {
+            spendVelocityTracker.release(cardId, amount, velocity);
+            spendTransaction.decline(DeclineReason.INSUFFICIENT_BALANCE);
+            spendTransaction.setBalanceAfter(card.getBalance());
+            transactionRepository.save(spendTransaction);
+            cardSummaryTracker.recordDecline(cardId);
+            auditLog.record(AuditEvent.declined(cardId, spendTransaction.getCounterpartyCardId(), amount, idempotencyKey,
+                    DeclineReason.INSUFFICIENT_BALANCE));
+            return CardOperationResult.declined(DeclineReason.INSUFFICIENT_BALANCE);
         }
         cardRepository.save(card);
 
         spendTransaction.setStatus(TransactionStatus.SUCCESS);
+        spendTransaction.setBalanceAfter(card.getBalance());
         transactionRepository.save(spendTransaction);
-
-        log.info("Spend success cardId={} amount={} idempotencyKey={}", cardId, amount, idempotencyKey);
-        return card;
+        cardSummaryTracker.recordDebit(cardId, amount);
+        return null;
     }
 
     private void ensureCardActive(Card card) {
@@ -0,0 +1,184 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.dto.LedgerTotals;
+import com.example.virtualCard.entity.ArchivedTransaction;
+import com.example.virtualCard.entity.Transaction;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.repository.ArchivedTransactionRepository;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.CardSummaryRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Keeps each card's summary row in step with its ledger. Updates run in the caller's
+ * transaction, after the card row is locked and the ledger row written. Cards issued before
+ * summaries were kept have no row to update; the first update to find none builds the row
+ * from the card's hot and archived history instead, and fills in the running balance of
+ * every settled or declined row that lacks one. A background pass does the same for cards
+ * nothing writes to once the application is ready, so every shard's schema exists; a failed
+ * pass is retried until one completes.
+ */
+@Component
+public class CardSummaryTracker {
+    private static final Logger log = LoggerFactory.getLogger(CardSummaryTracker.class);
+
+    private static final int BACKFILL_BATCH_SIZE = 100;
+    private static final Duration BACKFILL_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final CardRepository cardRepository;
+    private final CardSummaryRepository cardSummaryRepository;
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService backfiller;
+
+    public CardSummaryTracker(
+            CardRepository cardRepository,
+            CardSummaryRepository cardSummaryRepository,
+            TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            ShardRouter shardRouter,
+            TransactionTemplate transactionTemplate
+    ) {
+        this.cardRepository = cardRepository;
+        this.cardSummaryRepository = cardSummaryRepository;
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.backfiller = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("card-summary-backfill").daemon().factory());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillInBackground() {
+        backfiller.execute(this::runSafely);
+    }
+
+    public void open(UUID cardId, LocalDateTime at) {
+        cardSummaryRepository.open(cardId, at);
+    }
+
+    public void recordCredit(UUID cardId, BigDecimal amount) {
+        if (cardSummaryRepository.recordCredit(cardId, amount, LocalDateTime.now()) == 0) {
+            backfill(cardId);
+        }
+    }
+
+    public void recordDebit(UUID cardId, BigDecimal amount) {
+        if (cardSummaryRepository.recordDebit(cardId, amount, LocalDateTime.now()) == 0) {
+            backfill(cardId);
+        }
+    }
+
+    public void recordDecline(UUID cardId) {
+        if (cardSummaryRepository.recordDecline(cardId, LocalDateTime.now()) == 0) {
+            backfill(cardId);
+        }
+    }
+
+    public LedgerTotals sumLedger(UUID cardId) {
+        LedgerTotals hot = transactionRepository.sumLedger(cardId, TransactionType.TOPUP, TransactionType.SPEND,
+                TransactionStatus.SUCCESS, TransactionStatus.DECLINED);
+        LedgerTotals archived = archivedTransactionRepository.sumLedger(cardId, TransactionType.TOPUP,
+                TransactionType.SPEND, TransactionStatus.SUCCESS, TransactionStatus.DECLINED);
+        return hot.plus(archived);
+    }
+
+    /**
+     * Builds summary rows for every card still without one, each under its card's row lock.
+     */
+    public int backfillMissing() {
+        return shardRouter.fanOut(this::backfillShard).stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private int backfillShard() {
+        int total = 0;
+        List<UUID> cardIds;
+        do {
+            cardIds = cardSummaryRepository.findCardIdsWithoutSummary(Limit.of(BACKFILL_BATCH_SIZE));
+            for (UUID cardId : cardIds) {
+                Integer backfilled = transactionTemplate.execute(tx -> {
+                    if (cardRepository.findByIdForSpend(cardId).isEmpty() || cardSummaryRepository.existsById(cardId)) {
+                        return 0;
+                    }
+                    backfill(cardId);
+                    return 1;
+                });
+                total += backfilled == null ? 0 : backfilled;
+            }
+        } while (cardIds.size() == BACKFILL_BATCH_SIZE);
+        return total;
+    }
+
+    // The ledger row being recorded is already flushed, so the rebuilt totals include it.
+    private void backfill(UUID cardId) {
+        LedgerTotals totals = sumLedger(cardId);
+        cardSummaryRepository.insert(cardId, totals.toppedUp(), totals.spent(), totals.declines(),
+                totals.lastActivityAt());
+
+        List<LedgerRow> rows = new ArrayList<>();
+        for (ArchivedTransaction row : archivedTransactionRepository.findByCardIdOrderByCreatedAt(cardId)) {
+            rows.add(new LedgerRow(row.getCreatedAt(), row.getType(), row.getStatus(), row.getAmount(),
+                    row.getBalanceAfter(), row::setBalanceAfter));
+        }
+        for (Transaction row : transactionRepository.findByCard_Id(cardId)) {
+            rows.add(new LedgerRow(row.getCreatedAt(), row.getType(), row.getStatus(), row.getAmount(),
+                    row.getBalanceAfter(), row::setBalanceAfter));
+        }
+        rows.sort(Comparator.comparing(LedgerRow::createdAt));
+        BigDecimal balance = BigDecimal.ZERO;
+        for (LedgerRow row : rows) {
+            if (row.status() == TransactionStatus.SUCCESS) {
+                balance = row.type() == TransactionType.SPEND ? balance.subtract(row.amount()) : balance.add(row.amount());
+            }
+            if (row.balanceAfter() == null && row.status() != TransactionStatus.PENDING) {
+                row.setBalanceAfter().accept(balance);
+            }
+        }
+        log.debug("Backfilled card summary cardId={} ledgerRows={}", cardId, rows.size());
+    }
+
+    private void runSafely() {
+        try {
+            int backfilled = backfillMissing();
+            if (backfilled > 0) {
+                log.info("Backfilled summaries for {} cards", backfilled);
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Card summary backfill failed, retrying in {}: {}", BACKFILL_RETRY_DELAY, ex.getMessage());
+            backfiller.schedule(this::runSafely, BACKFILL_RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backfiller.shutdownNow();
+    }
+
+    private record LedgerRow(LocalDateTime createdAt, TransactionType type, TransactionStatus status, BigDecimal amount,
+                             BigDecimal balanceAfter, Consumer<BigDecimal> setBalanceAfter) {}
+}
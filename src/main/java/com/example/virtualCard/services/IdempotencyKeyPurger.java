@@ -0,0 +1,68 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.IdempotencyProperties;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes expired idempotency records on every shard. Expired keys are already free to claim
+ * again, so this only keeps {@code idempotency_keys} from growing; it runs whether or not
+ * transactions are archived.
+ */
+@Component
+public class IdempotencyKeyPurger {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyPurger.class);
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    public IdempotencyKeyPurger(
+            IdempotencyRecordRepository idempotencyRecordRepository,
+            ShardRouter shardRouter,
+            TransactionTemplate transactionTemplate,
+            IdempotencyProperties properties
+    ) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        long interval = properties.getPurgeInterval().toMillis();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("idempotency-key-purger").daemon().factory());
+        scheduler.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public int purge() {
+        LocalDateTime now = LocalDateTime.now();
+        int purged = shardRouter.fanOut(() -> transactionTemplate.execute(tx -> idempotencyRecordRepository.deleteExpired(now)))
+                .stream().mapToInt(Integer::intValue).sum();
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+        return purged;
+    }
+
+    private void runSafely() {
+        try {
+            purge();
+        } catch (RuntimeException ex) {
+            log.warn("Idempotency key purge failed: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
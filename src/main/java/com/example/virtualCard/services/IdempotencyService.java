@@ -1,92 +1,237 @@
 package com.example.virtualCard.services;
 
+import com.example.virtualCard.config.ArchiveProperties;
+import com.example.virtualCard.config.IdempotencyProperties;
+import com.example.virtualCard.config.RequestTimings;
+import com.example.virtualCard.dto.AuditEvent;
+import com.example.virtualCard.dto.CardOperationResult;
+import com.example.virtualCard.entity.ArchivedTransaction;
 import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.entity.IdempotencyRecord;
 import com.example.virtualCard.entity.Transaction;
+import com.example.virtualCard.enums.DeclineReason;
 import com.example.virtualCard.enums.TransactionStatus;
 import com.example.virtualCard.enums.TransactionType;
 import com.example.virtualCard.exception.CardNotFoundException;
-import com.example.virtualCard.exception.IdempotencyConflictException;
-import com.example.virtualCard.exception.IdempotencyInProgressException;
-import com.example.virtualCard.exception.InsufficientBalanceException;
+import com.example.virtualCard.repository.ArchivedTransactionRepository;
 import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
 import com.example.virtualCard.repository.TransactionRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 public class IdempotencyService {
-    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final String ISSUANCE_SCOPE = "issuance";
 
     private final CardRepository cardRepository;
     private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final boolean replayArchivedKeys;
+    private final Duration keyTtl;
+    private final AuditLog auditLog;
 
-    public IdempotencyService(CardRepository cardRepository, TransactionRepository transactionRepository) {
+    public IdempotencyService(CardRepository cardRepository, TransactionRepository transactionRepository,
+                              ArchivedTransactionRepository archivedTransactionRepository,
+                              IdempotencyRecordRepository idempotencyRecordRepository,
+                              ArchiveProperties archiveProperties, IdempotencyProperties idempotencyProperties,
+                              AuditLog auditLog) {
         this.cardRepository = cardRepository;
         this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.replayArchivedKeys = archiveProperties.isReplayArchivedKeys();
+        this.keyTtl = idempotencyProperties.getTtl();
+        this.auditLog = auditLog;
     }
 
-    public Transaction reserveIdempotencyKey(Card card, TransactionType type, BigDecimal amount, String idempotencyKey) {
-        try {
-            Transaction pending = new Transaction(card, type, amount, TransactionStatus.PENDING, idempotencyKey);
-            return transactionRepository.saveAndFlush(pending);
-        } catch (DataIntegrityViolationException ex) {
-            Transaction existing = transactionRepository.findByIdempotencyKey(idempotencyKey)
-                    .orElseThrow(() -> ex);
-            UUID expectedCardId = TransactionType.ISSUANCE.equals(type) ? null : card.getId();
-            validateIdempotentReplay(existing, expectedCardId, type, amount);
-            if (existing.getStatus() == TransactionStatus.PENDING) {
-                throw new IdempotencyInProgressException();
+    /**
+     * Resolves a live claim on the key to the ledger row holding its outcome. Card operations
+     * are scoped to the card, issuance to a scope of its own. Expired claims, and claims whose
+     * row was archived while archived keys are not replayed, leave the key free.
+     */
+    public Optional<Transaction> findExisting(UUID cardId, String idempotencyKey) {
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.IDEMPOTENCY)) {
+            return idempotencyRecordRepository.findById(keyHash(cardId, idempotencyKey)).flatMap(this::resolve);
+        }
+    }
+
+    /**
+     * Inserts the PENDING ledger row and claims the key for it. If another request already
+     * holds the key, that request's row is returned unacquired for the caller to replay; a
+     * null row means the key changed hands while we looked and the caller should retry.
+     */
+    public Reservation reserveIdempotencyKey(Card card, TransactionType type, BigDecimal amount, String idempotencyKey) {
+        return reserveIdempotencyKey(card, type, amount, idempotencyKey, null);
+    }
+
+    public Reservation reserveIdempotencyKey(Card card, TransactionType type, BigDecimal amount, String idempotencyKey,
+                                             UUID counterpartyCardId) {
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.IDEMPOTENCY)) {
+            return reserve(card, type, amount, idempotencyKey, counterpartyCardId);
+        }
+    }
+
+    private Reservation reserve(Card card, TransactionType type, BigDecimal amount, String idempotencyKey,
+                                UUID counterpartyCardId) {
+        UUID keyHash = keyHash(TransactionType.ISSUANCE.equals(type) ? null : card.getId(), idempotencyKey);
+        Transaction pending = transactionRepository.save(
+                new Transaction(card, type, amount, TransactionStatus.PENDING, idempotencyKey, counterpartyCardId));
+        Reservation claim = claim(keyHash, pending.getId());
+        if (!claim.acquired()) {
+            transactionRepository.delete(pending);
+            return claim;
+        }
+        return new Reservation(pending, true);
+    }
+
+    /**
+     * Claims an issuance key before anything is written for the card, so a request that
+     * loses the race inserts nothing. An acquired reservation carries no row yet: the claim
+     * points at a placeholder until {@link #bindIssuance} records the issuance row, and both
+     * commit together.
+     */
+    public Reservation reserveIssuanceKey(String idempotencyKey) {
+        try (RequestTimings.Span ignored = RequestTimings.time(RequestTimings.Phase.IDEMPOTENCY)) {
+            UUID keyHash = keyHash(null, idempotencyKey);
+            return claim(keyHash, keyHash);
+        }
+    }
+
+    public void bindIssuance(Transaction issuance) {
+        idempotencyRecordRepository.reassign(keyHash(null, issuance.getIdempotencyKey()), issuance.getId());
+    }
+
+    private Reservation claim(UUID keyHash, UUID transactionId) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(keyTtl);
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (idempotencyRecordRepository.claim(keyHash, transactionId, expiresAt) == 1) {
+                return new Reservation(null, true);
+            }
+            IdempotencyRecord holder = idempotencyRecordRepository.findById(keyHash).orElse(null);
+            Optional<Transaction> existing = holder == null ? Optional.empty() : resolve(holder);
+            if (existing.isPresent()) {
+                return new Reservation(existing.get(), false);
+            }
+            if (holder != null) {
+                idempotencyRecordRepository.release(keyHash, holder.getTransactionId());
             }
-            return existing;
         }
+        return new Reservation(null, false);
     }
 
-    public Card replayCreate(Transaction existing, String expectedName, BigDecimal expectedAmount) {
-        validateIdempotentReplay(existing, null, TransactionType.ISSUANCE, expectedAmount);
+    public CardOperationResult replayCreate(Transaction existing, String expectedName, BigDecimal expectedAmount) {
+        if (existing == null) {
+            return CardOperationResult.inProgress();
+        }
+        if (!matches(existing, null, TransactionType.ISSUANCE, expectedAmount, null)) {
+            return CardOperationResult.payloadConflict();
+        }
         if (existing.getStatus() == TransactionStatus.PENDING) {
-            throw new IdempotencyInProgressException();
+            return CardOperationResult.inProgress();
         }
-        log.info("Idempotent replay for issuance idempotencyKey={}", existing.getIdempotencyKey());
         Card existingCard = getCard(existing.getCard().getId());
         if (!Objects.equals(existingCard.getCardholderName(), expectedName)) {
-            throw new IdempotencyConflictException("Idempotency key reused with different request payload");
+            return CardOperationResult.payloadConflict();
         }
-        return existingCard;
+        auditLog.record(AuditEvent.replayed(TransactionType.ISSUANCE, existingCard.getId(), null, expectedAmount,
+                existing.getIdempotencyKey()));
+        return CardOperationResult.replayed(existingCard);
     }
 
-    public Card replayTopup(Transaction existing, UUID cardId, BigDecimal amount) {
-        validateIdempotentReplay(existing, cardId, TransactionType.TOPUP, amount);
+    public CardOperationResult replayTopup(Transaction existing, UUID cardId, BigDecimal amount) {
+        if (existing == null) {
+            return CardOperationResult.inProgress();
+        }
+        if (!matches(existing, cardId, TransactionType.TOPUP, amount, null)) {
+            return CardOperationResult.payloadConflict();
+        }
         if (existing.getStatus() == TransactionStatus.PENDING) {
-            throw new IdempotencyInProgressException();
+            return CardOperationResult.inProgress();
         }
-        log.info("Idempotent replay for topup cardId={} idempotencyKey={}", cardId, existing.getIdempotencyKey());
-        return getCard(cardId);
+        auditLog.record(AuditEvent.replayed(TransactionType.TOPUP, cardId, null, amount, existing.getIdempotencyKey()));
+        return CardOperationResult.replayed(getCard(cardId));
+    }
+
+    public CardOperationResult replaySpend(Transaction existing, UUID cardId, BigDecimal amount) {
+        return replayDebit(existing, cardId, amount, null);
+    }
+
+    /**
+     * Replays a transfer from its SPEND leg, which carries the destination as counterparty.
+     */
+    public CardOperationResult replayTransfer(Transaction existing, UUID sourceCardId, UUID destinationCardId,
+                                              BigDecimal amount) {
+        return replayDebit(existing, sourceCardId, amount, destinationCardId);
     }
 
-    public Card replaySpend(Transaction existing, UUID cardId, BigDecimal amount) {
-        validateIdempotentReplay(existing, cardId, TransactionType.SPEND, amount);
+    private CardOperationResult replayDebit(Transaction existing, UUID cardId, BigDecimal amount, UUID counterpartyCardId) {
+        if (existing == null) {
+            return CardOperationResult.inProgress();
+        }
+        if (!matches(existing, cardId, TransactionType.SPEND, amount, counterpartyCardId)) {
+            return CardOperationResult.payloadConflict();
+        }
         if (existing.getStatus() == TransactionStatus.PENDING) {
-            throw new IdempotencyInProgressException();
+            return CardOperationResult.inProgress();
         }
-        log.info("Idempotent replay for spend cardId={} idempotencyKey={}", cardId, existing.getIdempotencyKey());
+        auditLog.record(AuditEvent.replayed(TransactionType.SPEND, cardId, counterpartyCardId, amount,
+                existing.getIdempotencyKey()));
         if (existing.getStatus() == TransactionStatus.DECLINED) {
-            throw new InsufficientBalanceException();
+            // declines recorded before decline_reason existed were all balance declines
+            DeclineReason reason = existing.getDeclineReason();
+            return CardOperationResult.declined(reason != null ? reason : DeclineReason.INSUFFICIENT_BALANCE);
         }
-        return getCard(cardId);
+        return CardOperationResult.replayed(getCard(cardId));
     }
 
-    public void validateIdempotentReplay(Transaction existing, UUID expectedCardId, TransactionType expectedType, BigDecimal expectedAmount) {
-        if (!expectedType.equals(existing.getType())
-                || (expectedCardId != null && !Objects.equals(expectedCardId, existing.getCard().getId()))
-                || (expectedAmount != null && existing.getAmount().compareTo(expectedAmount) != 0)) {
-            throw new IdempotencyConflictException("Idempotency key reused with different request payload");
+    public boolean matches(Transaction existing, UUID expectedCardId, TransactionType expectedType, BigDecimal expectedAmount,
+                           UUID expectedCounterpartyCardId) {
+        return expectedType.equals(existing.getType())
+                && (expectedCardId == null || Objects.equals(expectedCardId, existing.getCard().getId()))
+                && (expectedAmount == null || existing.getAmount().compareTo(expectedAmount) == 0)
+                && Objects.equals(expectedCounterpartyCardId, existing.getCounterpartyCardId());
+    }
+
+    public record Reservation(Transaction transaction, boolean acquired) {
+    }
+
+    private Optional<Transaction> resolve(IdempotencyRecord record) {
+        if (record.isExpired(LocalDateTime.now())) {
+            return Optional.empty();
+        }
+        Optional<Transaction> hot = transactionRepository.findById(record.getTransactionId());
+        if (hot.isPresent() || !replayArchivedKeys) {
+            return hot;
+        }
+        return archivedTransactionRepository.findById(record.getTransactionId())
+                .map(ArchivedTransaction::toReplayTransaction);
+    }
+
+    static UUID keyHash(UUID cardId, String idempotencyKey) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
         }
+        digest.update((cardId == null ? ISSUANCE_SCOPE : cardId.toString()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(idempotencyKey.getBytes(StandardCharsets.UTF_8));
+        ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+        return new UUID(hash.getLong(), hash.getLong());
     }
 
     private Card getCard(UUID id) {
@@ -0,0 +1,191 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ShardContext;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.config.TransferProperties;
+import com.example.virtualCard.dto.AuditEvent;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.entity.Transaction;
+import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.exception.CardNotFoundException;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Credits pending transfer legs into pooled cards. Transfers into a pooled card never lock
+ * it; instead this job locks it once per batch, adds up the pending TOPUP legs and settles
+ * them together, so the pooled row takes one write per batch rather than one per payout.
+ * If the pooled card is no longer active, its pending legs are declined and each amount is
+ * credited back to the source card as a TOPUP leg carrying the transfer's idempotency key.
+ */
+@Component
+public class PooledCreditSettler {
+    private static final Logger log = LoggerFactory.getLogger(PooledCreditSettler.class);
+
+    private final CardRepository cardRepository;
+    private final CardSummaryTracker cardSummaryTracker;
+    private final TransactionRepository transactionRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties properties;
+    private final AuditLog auditLog;
+    private final ScheduledExecutorService scheduler;
+
+    public PooledCreditSettler(
+            CardRepository cardRepository,
+            CardSummaryTracker cardSummaryTracker,
+            TransactionRepository transactionRepository,
+            ShardRouter shardRouter,
+            TransactionTemplate transactionTemplate,
+            TransferProperties properties,
+            AuditLog auditLog
+    ) {
+        this.cardRepository = cardRepository;
+        this.cardSummaryTracker = cardSummaryTracker;
+        this.transactionRepository = transactionRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.auditLog = auditLog;
+        if (!properties.getPooledCards().isEmpty()) {
+            long interval = properties.getSettleInterval().toMillis();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("pooled-credit-settler").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public int settle() {
+        int settled = 0;
+        for (UUID cardId : properties.getPooledCards()) {
+            try (ShardContext.Scope ignored = shardRouter.bindCard(cardId)) {
+                int batch;
+                do {
+                    batch = settleBatch(cardId);
+                    settled += batch;
+                } while (batch == properties.getSettleBatchSize());
+            }
+        }
+        return settled;
+    }
+
+    private int settleBatch(UUID cardId) {
+        Integer settled = transactionTemplate.execute(tx -> {
+            CardStatus status = cardRepository.findStatusById(cardId).orElse(null);
+            if (status == null) {
+                return 0;
+            }
+            if (status != CardStatus.ACTIVE) {
+                return refundBatch(cardId);
+            }
+            Card card = cardRepository.findByIdForSpend(cardId).orElseThrow(CardNotFoundException::new);
+            if (card.getStatus() != CardStatus.ACTIVE) {
+                // blocked since the status read; the next run refunds with the sources locked too
+                return 0;
+            }
+            List<Transaction> credits = findPendingCredits(cardId);
+            if (credits.isEmpty()) {
+                return 0;
+            }
+            BigDecimal total = BigDecimal.ZERO;
+            for (Transaction credit : credits) {
+                total = total.add(credit.getAmount());
+                credit.setStatus(TransactionStatus.SUCCESS);
+                credit.setBalanceAfter(card.getBalance().add(total));
+            }
+            card.credit(total);
+            cardSummaryTracker.recordCredit(cardId, total);
+            log.info("Settled {} pooled credits cardId={} amount={}", credits.size(), cardId, total);
+            return credits.size();
+        });
+        return settled == null ? 0 : settled;
+    }
+
+    /**
+     * Declines a batch of pending legs into an inactive pooled card and refunds their source
+     * cards, whatever the sources' own status. The pooled card and the sources are locked
+     * together in id order, the order transfers lock their two cards in.
+     */
+    private int refundBatch(UUID cardId) {
+        Set<UUID> lockOrder = new TreeSet<>(transactionRepository.findPendingTransferSources(cardId,
+                TransactionType.TOPUP, TransactionStatus.PENDING, Limit.of(properties.getSettleBatchSize())));
+        if (lockOrder.isEmpty()) {
+            return 0;
+        }
+        lockOrder.add(cardId);
+        Map<UUID, Card> locked = new HashMap<>();
+        for (UUID id : lockOrder) {
+            locked.put(id, cardRepository.findByIdForSpend(id).orElseThrow(CardNotFoundException::new));
+        }
+        Card card = locked.get(cardId);
+        if (card.getStatus() == CardStatus.ACTIVE) {
+            return 0;
+        }
+        // Legs that arrived after the sources were read wait for the next batch.
+        List<Transaction> credits = findPendingCredits(cardId).stream()
+                .filter(credit -> locked.containsKey(credit.getCounterpartyCardId()))
+                .toList();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Transaction credit : credits) {
+            credit.decline(DeclineReason.CARD_NOT_ACTIVE);
+            credit.setBalanceAfter(card.getBalance());
+            cardSummaryTracker.recordDecline(cardId);
+
+            Card source = locked.get(credit.getCounterpartyCardId());
+            source.refund(credit.getAmount());
+            Transaction refund = new Transaction(source, TransactionType.TOPUP, credit.getAmount(),
+                    TransactionStatus.SUCCESS, credit.getIdempotencyKey(), cardId);
+            refund.setBalanceAfter(source.getBalance());
+            transactionRepository.save(refund);
+            cardSummaryTracker.recordCredit(source.getId(), credit.getAmount());
+            auditLog.record(AuditEvent.applied(TransactionType.TOPUP, source.getId(), cardId,
+                    credit.getAmount(), credit.getIdempotencyKey()));
+            total = total.add(credit.getAmount());
+        }
+        log.info("Refunded {} pooled credits into {} cardId={} amount={}", credits.size(), card.getStatus(),
+                cardId, total);
+        return credits.size();
+    }
+
+    private List<Transaction> findPendingCredits(UUID cardId) {
+        return transactionRepository.findPendingTransferCredits(cardId, TransactionType.TOPUP,
+                TransactionStatus.PENDING, Limit.of(properties.getSettleBatchSize()));
+    }
+
+    private void runSafely() {
+        try {
+            settle();
+        } catch (RuntimeException ex) {
+            log.warn("Pooled credit settlement failed: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.dto.LedgerMismatch;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+
+@Service
+public class ReconciliationService {
+
+    private final ShardRouter shardRouter;
+    private final TransactionRepository transactionRepository;
+
+    public ReconciliationService(ShardRouter shardRouter, TransactionRepository transactionRepository) {
+        this.shardRouter = shardRouter;
+        this.transactionRepository = transactionRepository;
+    }
+
+    public List<LedgerMismatch> findLedgerMismatches() {
+        return shardRouter.fanOut(() -> transactionRepository.findLedgerMismatches(TransactionType.SPEND, TransactionStatus.SUCCESS))
+                .stream()
+                .flatMap(Collection::stream)
+                .toList();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.virtualCard.services;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ring of time buckets holding a running amount (minor units) and count. Buckets are
+ * replaced by CAS when their slot comes round again, so writers never block each other and
+ * an add can only land in the bucket for its own time slice.
+ */
+final class SlidingWindow {
+
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    SlidingWindow(long spanMillis, int bucketCount) {
+        this.bucketMillis = spanMillis / bucketCount;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.set(i, new Bucket(Long.MIN_VALUE));
+        }
+    }
+
+    void add(long atMillis, long amount, long count) {
+        long epoch = atMillis / bucketMillis;
+        int slot = (int) Math.floorMod(epoch, (long) buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket.epoch == epoch) {
+                bucket.amount.add(amount);
+                bucket.count.add(count);
+                return;
+            }
+            if (bucket.epoch > epoch) {
+                return;
+            }
+            buckets.compareAndSet(slot, bucket, new Bucket(epoch));
+        }
+    }
+
+    long amount(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - buckets.length() + 1;
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket.epoch >= oldest) {
+                total += bucket.amount.sum();
+            }
+        }
+        return total;
+    }
+
+    long count(long nowMillis) {
+        long oldest = nowMillis / bucketMillis - buckets.length() + 1;
+        long total = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket.epoch >= oldest) {
+                total += bucket.count.sum();
+            }
+        }
+        return total;
+    }
+
+    boolean isIdle(long nowMillis) {
+        return count(nowMillis) == 0;
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final LongAdder amount = new LongAdder();
+        private final LongAdder count = new LongAdder();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.config.SpendLimitProperties;
+import com.example.virtualCard.dto.SpendSample;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory per-card spend velocity: a one-minute window (5s buckets) and a one-day window
+ * (15min buckets) of settled spend amounts and counts. Checks never touch the database.
+ * Check-then-record is not atomic by itself; it relies on spends for one card being
+ * serialized by the card row lock. Counters are per node and rebuilt from the last day of
+ * successful spends at startup.
+ */
+@Component
+public class SpendVelocityTracker implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(SpendVelocityTracker.class);
+
+    private static final long MINUTE_MILLIS = 60_000L;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final boolean enabled;
+    private final long perMinuteAmount;
+    private final long perMinuteCount;
+    private final long dailyAmount;
+    private final TransactionRepository transactionRepository;
+    private final ShardRouter shardRouter;
+    private final ConcurrentHashMap<UUID, CardWindows> windows = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService evictor;
+
+    public SpendVelocityTracker(SpendLimitProperties properties, TransactionRepository transactionRepository,
+                                ShardRouter shardRouter) {
+        this.enabled = properties.isEnabled();
+        this.perMinuteAmount = toMinorUnitsOrUnlimited(properties.getPerMinuteAmount());
+        this.perMinuteCount = properties.getPerMinuteCount() == null ? Long.MAX_VALUE : properties.getPerMinuteCount();
+        this.dailyAmount = toMinorUnitsOrUnlimited(properties.getDailyAmount());
+        this.transactionRepository = transactionRepository;
+        this.shardRouter = shardRouter;
+        if (enabled) {
+            this.evictor = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("velocity-evictor").daemon().factory());
+            evictor.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+        } else {
+            this.evictor = null;
+        }
+    }
+
+    /**
+     * Records the spend if it fits every limit. Inside a transaction the reservation is
+     * undone if that transaction rolls back, unless {@link #release} already undid it.
+     */
+    public Reservation tryAcquire(UUID cardId, BigDecimal amount) {
+        return tryAcquire(cardId, amount, System.currentTimeMillis());
+    }
+
+    Reservation tryAcquire(UUID cardId, BigDecimal amount, long nowMillis) {
+        if (!enabled) {
+            return new Reservation(true, nowMillis, false);
+        }
+        long minor = toMinorUnits(amount);
+        CardWindows card = windows.computeIfAbsent(cardId, id -> new CardWindows());
+        if (card.minute.amount(nowMillis) + minor > perMinuteAmount
+                || card.minute.count(nowMillis) + 1 > perMinuteCount
+                || card.day.amount(nowMillis) + minor > dailyAmount) {
+            return new Reservation(false, nowMillis, false);
+        }
+        card.record(nowMillis, minor, 1);
+        Reservation reservation = new Reservation(true, nowMillis, true);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED && reservation.undo()) {
+                        card.record(nowMillis, -minor, -1);
+                    }
+                }
+            });
+        }
+        return reservation;
+    }
+
+    /**
+     * Releases a reservation made by {@link #tryAcquire} for a spend that did not go through,
+     * from the buckets it was recorded in.
+     */
+    public void release(UUID cardId, BigDecimal amount, Reservation reservation) {
+        if (!reservation.undo()) {
+            return;
+        }
+        CardWindows card = windows.get(cardId);
+        if (card != null) {
+            card.record(reservation.acquiredAtMillis(), -toMinorUnits(amount), -1);
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.now().minusDays(1);
+        try {
+            int restored = 0;
+            for (List<SpendSample> shard : shardRouter.fanOut(() ->
+                    transactionRepository.findSpendSamplesSince(TransactionType.SPEND, TransactionStatus.SUCCESS, since))) {
+                for (SpendSample sample : shard) {
+                    long at = sample.createdAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    windows.computeIfAbsent(sample.cardId(), id -> new CardWindows())
+                            .record(at, toMinorUnits(sample.amount()), 1);
+                    restored++;
+                }
+            }
+            log.info("Rebuilt spend velocity windows from {} spends across {} cards", restored, windows.size());
+        } catch (RuntimeException ex) {
+            log.warn("Could not rebuild spend velocity windows, starting empty: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        windows.forEach((cardId, card) -> windows.computeIfPresent(cardId, (id, current) -> current.day.isIdle(now) ? null : current));
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    private static long toMinorUnitsOrUnlimited(BigDecimal limit) {
+        return limit == null ? Long.MAX_VALUE : toMinorUnits(limit);
+    }
+
+    /**
+     * A spend recorded in the windows, or a refusal. The recorded spend is undone at most
+     * once, by an explicit release or by the rollback of its transaction.
+     */
+    public static final class Reservation {
+        private final boolean acquired;
+        private final long acquiredAtMillis;
+        private final AtomicBoolean recorded;
+
+        private Reservation(boolean acquired, long acquiredAtMillis, boolean recorded) {
+            this.acquired = acquired;
+            this.acquiredAtMillis = acquiredAtMillis;
+            this.recorded = new AtomicBoolean(recorded);
+        }
+
+        public boolean acquired() { return acquired; }
+        public long acquiredAtMillis() { return acquiredAtMillis; }
+
+        private boolean undo() {
+            return recorded.compareAndSet(true, false);
+        }
+    }
+
+    private static final class CardWindows {
+        private final SlidingWindow minute = new SlidingWindow(MINUTE_MILLIS, 12);
+        private final SlidingWindow day = new SlidingWindow(DAY_MILLIS, 96);
+
+        private void record(long atMillis, long amount, long count) {
+            minute.add(atMillis, amount, count);
+            day.add(atMillis, amount, count);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ArchiveProperties;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.repository.ArchivedTransactionRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves finalized transactions older than the retention window from {@code transactions}
+ * into {@code transactions_archive}, one bounded batch per short transaction, on every
+ * shard. Retention cannot drop below a day because the spend velocity windows are rebuilt
+ * from the hot table.
+ */
+@Component
+public class TransactionArchiver {
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiver.class);
+
+    private static final Set<TransactionStatus> FINAL = Set.of(TransactionStatus.SUCCESS, TransactionStatus.DECLINED);
+
+    private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    public TransactionArchiver(
+            TransactionRepository transactionRepository,
+            ArchivedTransactionRepository archivedTransactionRepository,
+            ShardRouter shardRouter,
+            TransactionTemplate transactionTemplate,
+            ArchiveProperties properties
+    ) {
+        if (properties.getRetention().compareTo(Duration.ofDays(1)) < 0) {
+            throw new IllegalStateException("virtualcard.archive.retention must be at least one day");
+        }
+        this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        if (properties.isEnabled()) {
+            long interval = properties.getInterval().toMillis();
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("transaction-archiver").daemon().factory());
+            scheduler.scheduleWithFixedDelay(this::runSafely, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.scheduler = null;
+        }
+    }
+
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        int archived = shardRouter.fanOut(() -> archiveShard(cutoff)).stream().mapToInt(Integer::intValue).sum();
+        if (archived > 0) {
+            log.info("Archived {} transactions created before {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    private int archiveShard(LocalDateTime cutoff) {
+        int total = 0;
+        for (int batch = 0; batch < properties.getMaxBatchesPerRun(); batch++) {
+            Integer moved = transactionTemplate.execute(tx -> {
+                List<UUID> ids = transactionRepository.findArchivableIds(FINAL, cutoff, Limit.of(properties.getBatchSize()));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                archivedTransactionRepository.copyFromHot(ids, properties.isReplayArchivedKeys());
+                transactionRepository.deleteAllByIdInBatch(ids);
+                return ids.size();
+            });
+            if (moved == null || moved == 0) {
+                break;
+            }
+            total += moved;
+        }
+        return total;
+    }
+
+    private void runSafely() {
+        try {
+            archive();
+        } catch (RuntimeException ex) {
+            log.warn("Transaction archival run failed: {}", ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -1,12 +1,24 @@
 package com.example.virtualCard.services;
 
+import com.example.virtualCard.config.ShardContext;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.dto.CardSummaryResponse;
+import com.example.virtualCard.dto.HistoryWatermark;
+import com.example.virtualCard.dto.LedgerTotals;
+import com.example.virtualCard.dto.TransactionHistory;
+import com.example.virtualCard.entity.ArchivedTransaction;
+import com.example.virtualCard.entity.Card;
 import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.entity.Transaction;
 import com.example.virtualCard.exception.CardNotFoundException;
+import com.example.virtualCard.repository.ArchivedTransactionRepository;
 import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.CardSummaryRepository;
 import com.example.virtualCard.repository.TransactionRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,19 +26,89 @@ import java.util.UUID;
 public class TransactionQueryService {
 
     private final CardRepository cardRepository;
+    private final CardSummaryRepository cardSummaryRepository;
+    private final CardSummaryTracker cardSummaryTracker;
     private final TransactionRepository transactionRepository;
+    private final ArchivedTransactionRepository archivedTransactionRepository;
+    private final ShardRouter shardRouter;
 
-    public TransactionQueryService(CardRepository cardRepository, TransactionRepository transactionRepository) {
+    public TransactionQueryService(CardRepository cardRepository, CardSummaryRepository cardSummaryRepository,
+                                   CardSummaryTracker cardSummaryTracker, TransactionRepository transactionRepository,
+                                   ArchivedTransactionRepository archivedTransactionRepository, ShardRouter shardRouter) {
         this.cardRepository = cardRepository;
+        this.cardSummaryRepository = cardSummaryRepository;
+        this.cardSummaryTracker = cardSummaryTracker;
         this.transactionRepository = transactionRepository;
+        this.archivedTransactionRepository = archivedTransactionRepository;
+        this.shardRouter = shardRouter;
     }
 
     @Transactional(readOnly = true)
     public List<TransactionResponse> getTransactions(UUID cardId) {
-        cardRepository.findById(cardId).orElseThrow(CardNotFoundException::new);
-        return transactionRepository.findByCard_Id(cardId)
-                .stream()
-                .map(TransactionResponse::from)
-                .toList();
+        return getHistory(cardId).transactions();
+    }
+
+    /**
+     * Reads the history and builds its watermark from the same rows, which is what
+     * {@link #getHistoryWatermark} would return without the extra aggregate query. Both tables
+     * are read in createdAt order off their (card, createdAt) indexes and merged in one pass.
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistory getHistory(UUID cardId) {
+        try (ShardContext.Scope ignored = shardRouter.bindCard(cardId)) {
+            Card card = cardRepository.findById(cardId).orElseThrow(CardNotFoundException::new);
+            List<Transaction> hotRows = transactionRepository.findByCard_IdOrderByCreatedAt(cardId);
+            List<ArchivedTransaction> archivedRows = archivedTransactionRepository.findByCardIdOrderByCreatedAt(cardId);
+            HistoryWatermark watermark = new HistoryWatermark(card.getVersion(), hotRows.size(),
+                    hotRows.isEmpty() ? null : hotRows.getLast().getCreatedAt());
+            return new TransactionHistory(watermark, merge(archivedRows, hotRows));
+        }
+    }
+
+    // Archived rows go first on equal timestamps, as they were written before the hot ones.
+    private static List<TransactionResponse> merge(List<ArchivedTransaction> archived, List<Transaction> hot) {
+        List<TransactionResponse> merged = new ArrayList<>(archived.size() + hot.size());
+        int a = 0;
+        int h = 0;
+        while (a < archived.size() && h < hot.size()) {
+            if (!archived.get(a).getCreatedAt().isAfter(hot.get(h).getCreatedAt())) {
+                merged.add(TransactionResponse.from(archived.get(a++)));
+            } else {
+                merged.add(TransactionResponse.from(hot.get(h++)));
+            }
+        }
+        while (a < archived.size()) {
+            merged.add(TransactionResponse.from(archived.get(a++)));
+        }
+        while (h < hot.size()) {
+            merged.add(TransactionResponse.from(hot.get(h++)));
+        }
+        return merged;
+    }
+
+    @Transactional(readOnly = true)
+    public HistoryWatermark getHistoryWatermark(UUID cardId) {
+        try (ShardContext.Scope ignored = shardRouter.bindCard(cardId)) {
+            return transactionRepository.findHistoryWatermark(cardId).orElseThrow(CardNotFoundException::new);
+        }
+    }
+
+    /**
+     * Reads the card's maintained summary row. Cards issued before summaries were kept get the
+     * same totals aggregated from their hot and archived history until their row is backfilled.
+     */
+    @Transactional(readOnly = true)
+    public CardSummaryResponse getSummary(UUID cardId) {
+        try (ShardContext.Scope ignored = shardRouter.bindCard(cardId)) {
+            Card card = cardRepository.findById(cardId).orElseThrow(CardNotFoundException::new);
+            return cardSummaryRepository.findById(cardId)
+                    .map(summary -> new CardSummaryResponse(cardId, card.getBalance(), summary.getTotalToppedUp(),
+                            summary.getTotalSpent(), summary.getDeclineCount(), summary.getLastActivityAt()))
+                    .orElseGet(() -> {
+                        LedgerTotals totals = cardSummaryTracker.sumLedger(cardId);
+                        return new CardSummaryResponse(cardId, card.getBalance(), totals.toppedUp(), totals.spent(),
+                                totals.declines(), totals.lastActivityAt());
+                    });
+        }
     }
 }
@@ -0,0 +1,124 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ResponseJsonWriter;
+import com.example.virtualCard.config.SearchProperties;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.dto.SearchCursor;
+import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.dto.TransactionSearchCriteria;
+import com.example.virtualCard.dto.TransactionSearchPage;
+import com.example.virtualCard.entity.Transaction;
+import com.example.virtualCard.exception.UnindexedSearchException;
+import com.example.virtualCard.repository.TransactionRepository;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Cross-card search over the ledger. Every search must be answerable from one of the
+ * (status, createdAt) or (card_id, createdAt) indexes within a bounded time window;
+ * anything else is rejected up front rather than scanning the table. Results are ordered
+ * by (createdAt, id) and paged by keyset, merged across shards.
+ */
+@Service
+public class TransactionSearchService {
+
+    // UUID.compareTo compares signed halves; the database orders uuid values as unsigned bytes.
+    private static final Comparator<UUID> UNSIGNED_UUID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private static final Comparator<Transaction> KEYSET_ORDER =
+            Comparator.comparing(Transaction::getCreatedAt).thenComparing(Transaction::getId, UNSIGNED_UUID_ORDER);
+
+    private final TransactionRepository transactionRepository;
+    private final ShardRouter shardRouter;
+    private final ResponseJsonWriter responseJsonWriter;
+    private final Duration maxWindow;
+    private final int maxPageSize;
+    private final int maxCardIds;
+
+    public TransactionSearchService(
+            TransactionRepository transactionRepository,
+            ShardRouter shardRouter,
+            ResponseJsonWriter responseJsonWriter,
+            SearchProperties properties
+    ) {
+        this.transactionRepository = transactionRepository;
+        this.shardRouter = shardRouter;
+        this.responseJsonWriter = responseJsonWriter;
+        this.maxWindow = properties.getMaxWindow();
+        this.maxPageSize = properties.getMaxPageSize();
+        this.maxCardIds = properties.getMaxCardIds();
+    }
+
+    public TransactionSearchPage search(TransactionSearchCriteria criteria, String cursor, Integer limit) {
+        requireIndexed(criteria);
+        int pageSize = limit == null ? Math.min(100, maxPageSize) : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxPageSize);
+        }
+        List<Transaction> page = fetchPage(criteria, SearchCursor.decode(cursor), pageSize + 1);
+        boolean hasMore = page.size() > pageSize;
+        List<Transaction> items = hasMore ? page.subList(0, pageSize) : page;
+        String nextCursor = hasMore ? SearchCursor.after(items.get(items.size() - 1)).encode() : null;
+        return new TransactionSearchPage(items.stream().map(TransactionResponse::from).toList(), nextCursor);
+    }
+
+    /**
+     * Writes every match as newline-delimited JSON, one keyset page at a time, so memory use
+     * and per-query lock/snapshot time stay bounded however large the result is.
+     */
+    public void stream(TransactionSearchCriteria criteria, OutputStream out) throws IOException {
+        requireIndexed(criteria);
+        SearchCursor after = null;
+        while (true) {
+            List<Transaction> page = fetchPage(criteria, after, maxPageSize);
+            responseJsonWriter.writeLines(page.stream().map(TransactionResponse::from).toList(), out);
+            out.flush();
+            if (page.size() < maxPageSize) {
+                return;
+            }
+            after = SearchCursor.after(page.get(page.size() - 1));
+        }
+    }
+
+    public void requireIndexed(TransactionSearchCriteria criteria) {
+        if (criteria.statuses().isEmpty() && criteria.cardIds().isEmpty()) {
+            throw new UnindexedSearchException("search must filter on status or cardId");
+        }
+        if (criteria.createdFrom() == null) {
+            throw new UnindexedSearchException("search must set createdFrom");
+        }
+        LocalDateTime to = criteria.createdTo() == null ? LocalDateTime.now() : criteria.createdTo();
+        if (to.isBefore(criteria.createdFrom())) {
+            throw new IllegalArgumentException("createdTo cannot be before createdFrom");
+        }
+        if (Duration.between(criteria.createdFrom(), to).compareTo(maxWindow) > 0) {
+            throw new UnindexedSearchException("search window cannot exceed " + maxWindow);
+        }
+        if (criteria.cardIds().size() > maxCardIds) {
+            throw new UnindexedSearchException("search cannot filter on more than " + maxCardIds + " card ids");
+        }
+        if (criteria.minAmount() != null && criteria.maxAmount() != null
+                && criteria.minAmount().compareTo(criteria.maxAmount()) > 0) {
+            throw new IllegalArgumentException("minAmount cannot exceed maxAmount");
+        }
+    }
+
+    private List<Transaction> fetchPage(TransactionSearchCriteria criteria, SearchCursor after, int limit) {
+        return shardRouter.fanOut(() -> transactionRepository.search(criteria, after, limit))
+                .stream()
+                .flatMap(Collection::stream)
+                .sorted(KEYSET_ORDER)
+                .limit(limit)
+                .toList();
+    }
+}
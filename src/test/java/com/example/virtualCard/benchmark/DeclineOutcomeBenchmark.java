@@ -0,0 +1,115 @@
+package com.example.virtualCard.benchmark;
+
+import com.example.virtualCard.config.ArchiveProperties;
+import com.example.virtualCard.config.CoalescingProperties;
+import com.example.virtualCard.config.AuditProperties;
+import com.example.virtualCard.config.IdempotencyProperties;
+import com.example.virtualCard.config.IssuanceProperties;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.config.ShardingProperties;
+import com.example.virtualCard.config.SpendLimitProperties;
+import com.example.virtualCard.config.TransferProperties;
+import com.example.virtualCard.dto.CardOperationResult;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.exception.InsufficientBalanceException;
+import com.example.virtualCard.repository.ArchivedTransactionRepository;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import com.example.virtualCard.services.AuditLog;
+import com.example.virtualCard.services.CardIdPool;
+import com.example.virtualCard.services.CardReadCoalescer;
+import com.example.virtualCard.services.CardService;
+import com.example.virtualCard.services.CardSummaryTracker;
+import com.example.virtualCard.services.IdempotencyService;
+import com.example.virtualCard.services.SpendVelocityTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.example.virtualCard.dto.CardOperationResults.isSuccessful;
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Spend path at a 90% decline ratio, comparing declines surfaced as exceptions (the old
+ * contract, reproduced via {@code orThrow()}) with declines returned as outcomes.
+ * Repositories are mocked so the numbers isolate the service and decline-handling cost.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class DeclineOutcomeBenchmark {
+
+    private static final int WARMUP = 50_000;
+    private static final int ITERATIONS = 200_000;
+    private static final BigDecimal APPROVED = new BigDecimal("1.00");
+    private static final BigDecimal DECLINED = new BigDecimal("1000000000.00");
+
+    @Test
+    void declinedSpendsAsOutcomesVersusExceptions() {
+        UUID cardId = UUID.randomUUID();
+        Card card = new Card("Bench", new BigDecimal("100000000.00"));
+        card.setId(cardId);
+        card.setStatus(CardStatus.ACTIVE);
+
+        CardRepository cardRepository = mock(CardRepository.class);
+        TransactionRepository transactionRepository = mock(TransactionRepository.class);
+        when(cardRepository.findByIdForSpend(cardId)).thenReturn(Optional.of(card));
+        IdempotencyRecordRepository idempotencyRecordRepository = mock(IdempotencyRecordRepository.class);
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(idempotencyRecordRepository.claim(any(), any(), any())).thenReturn(1);
+
+        CardReadCoalescer coalescer = new CardReadCoalescer(new SimpleMeterRegistry(), new CoalescingProperties());
+        AuditLog auditLog = new AuditLog(new AuditProperties(), new SimpleMeterRegistry(), JsonMapper.shared());
+        IdempotencyService idempotencyService = new IdempotencyService(cardRepository, transactionRepository,
+                mock(ArchivedTransactionRepository.class), idempotencyRecordRepository, new ArchiveProperties(),
+                new IdempotencyProperties(), auditLog);
+        ShardRouter shardRouter = new ShardRouter(new ShardingProperties());
+        IssuanceProperties issuance = new IssuanceProperties();
+        issuance.setIdPoolSize(0);
+        CardService cardService = new CardService(cardRepository, mock(CardSummaryTracker.class), transactionRepository,
+                idempotencyService, shardRouter, new SpendVelocityTracker(new SpendLimitProperties(), transactionRepository, shardRouter),
+                coalescer, new TransferProperties(),
+                new CardIdPool(shardRouter, issuance), auditLog);
+
+        run(cardService, cardId, WARMUP, false);
+        run(cardService, cardId, WARMUP, true);
+        long outcomeNanos = run(cardService, cardId, ITERATIONS, false);
+        long exceptionNanos = run(cardService, cardId, ITERATIONS, true);
+
+        System.out.printf("decline ratio 90%%, %d spends: outcomes %d ns/op, exceptions %d ns/op%n",
+                ITERATIONS, outcomeNanos / ITERATIONS, exceptionNanos / ITERATIONS);
+        assertThat(outcomeNanos).isPositive();
+    }
+
+    private long run(CardService cardService, UUID cardId, int iterations, boolean throwOnDecline) {
+        int approved = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            BigDecimal amount = i % 10 == 0 ? APPROVED : DECLINED;
+            CardOperationResult result = cardService.spend(cardId, amount, "bench-" + i);
+            if (throwOnDecline) {
+                try {
+                    orThrow(result);
+                    approved++;
+                } catch (InsufficientBalanceException ex) {
+                    // expected for nine in ten spends
+                }
+            } else if (isSuccessful(result)) {
+                approved++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(approved).isEqualTo(iterations / 10);
+        return elapsed;
+    }
+}
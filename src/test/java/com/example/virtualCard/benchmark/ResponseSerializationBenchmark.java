@@ -0,0 +1,103 @@
+package com.example.virtualCard.benchmark;
+
+import com.example.virtualCard.config.ResponseJsonWriter;
+import com.example.virtualCard.dto.CardResponse;
+import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-response latency and allocation of the card and history responses: reflective Jackson
+ * serialization of the entity and of a full list (the previous path) against the generator
+ * writer with a reused buffer. Run with {@code mvn test -Pbenchmark}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ResponseSerializationBenchmark {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+    private static final int HISTORY_SIZE = 50;
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final ResponseJsonWriter writer = new ResponseJsonWriter(objectMapper);
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+    private long written;
+
+    @Test
+    void cardResponse() throws Exception {
+        Card card = new Card("Bench Holder", new BigDecimal("1234.56"));
+        card.setId(UUID.randomUUID());
+
+        compare("card", () -> sink(objectMapper.writeValueAsBytes(card)),
+                () -> writer.writeBuffered(CardResponse.from(card), this::sink));
+    }
+
+    @Test
+    void transactionHistory() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        List<TransactionResponse> history = new ArrayList<>();
+        for (int i = 0; i < HISTORY_SIZE; i++) {
+            history.add(new TransactionResponse(UUID.randomUUID(), cardId, new BigDecimal("10.00"),
+                    TransactionType.SPEND, "bench-" + i, TransactionStatus.SUCCESS, null, null,
+                    BigDecimal.valueOf(10_000 - 10L * i, 2), LocalDateTime.now()));
+        }
+
+        compare("history[" + HISTORY_SIZE + "]", () -> sink(objectMapper.writeValueAsBytes(history)),
+                () -> {
+                    streamed.reset();
+                    writer.writeArray(history, streamed);
+                    sink(streamed);
+                });
+    }
+
+    private void compare(String name, Body reflective, Body streaming) throws Exception {
+        measure(reflective, WARMUP);
+        measure(streaming, WARMUP);
+        long[] before = measure(reflective, ITERATIONS);
+        long[] after = measure(streaming, ITERATIONS);
+        System.out.printf("%s: reflective %d ns/op %d B/op, streaming %d ns/op %d B/op%n", name,
+                before[0] / ITERATIONS, before[1] / ITERATIONS, after[0] / ITERATIONS, after[1] / ITERATIONS);
+        assertThat(after[0]).isPositive();
+    }
+
+    private long[] measure(Body body, int iterations) throws Exception {
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            body.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        return new long[]{elapsed, threads.getThreadAllocatedBytes(threadId) - allocatedBefore};
+    }
+
+    private void sink(byte[] bytes) {
+        written += bytes.length;
+    }
+
+    private void sink(ByteArrayOutputStream buffer) {
+        written += buffer.size();
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.virtualCard.benchmark;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Time from launching the JVM to the first successful spend, for the plain executable jar
+ * (ddl-auto=update, eager beans) and the fast-start artifact (AOT, CDS archive, schema
+ * validation, lazy beans). Both run against one embedded PostgreSQL; the first plain run
+ * creates the schema the fast-start runs validate. Needs the artifacts, so run
+ * {@code mvn -Pfast-start package -DskipTests} and then
+ * {@code mvn test -Pbenchmark -Dtest=StartupBenchmark}, as a non-root user.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StartupBenchmark {
+
+    private static final int RUNS = 3;
+    private static final Pattern CARD_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+    private static final Path TARGET = Paths.get("target");
+    private static final Path FAST_START = TARGET.resolve("fast-start");
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void timeToFirstSpend() throws Exception {
+        Path plainJar = findJar(TARGET);
+        Path fastJar = FAST_START.resolve(plainJar.getFileName());
+        assumeTrue(Files.exists(fastJar) && Files.exists(FAST_START.resolve("application.jsa")),
+                "fast-start artifact missing; run mvn -Pfast-start package first");
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            String url = postgres.getJdbcUrl("postgres", "postgres");
+            long[] plain = new long[RUNS];
+            long[] fast = new long[RUNS];
+            for (int run = 0; run < RUNS; run++) {
+                plain[run] = timeToFirstSpend(List.of("-jar", plainJar.getFileName().toString()), url, run, TARGET);
+                fast[run] = timeToFirstSpend(List.of("-XX:SharedArchiveFile=application.jsa", "-Dspring.aot.enabled=true",
+                        "-jar", fastJar.getFileName().toString(), "--spring.profiles.active=fast-start"), url, run, FAST_START);
+            }
+            System.out.printf("time to first spend, median of %d: plain %d ms, fast-start %d ms%n",
+                    RUNS, median(plain), median(fast));
+            assertThat(median(fast)).isPositive();
+        }
+    }
+
+    private long timeToFirstSpend(List<String> launch, String jdbcUrl, int run, Path workingDirectory) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(launch);
+        command.addAll(List.of("--server.port=" + port, "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=postgres", "--spring.datasource.password="));
+
+        long begin = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(TARGET.resolve("startup-benchmark.log").toFile()))
+                .redirectErrorStream(true)
+                .start();
+        try {
+            String base = "http://localhost:" + port + "/api/v1/cards";
+            String key = "startup-" + run + "-" + begin;
+            HttpResponse<String> created = awaitServer(process, HttpRequest.newBuilder(URI.create(base + "/create"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"cardholderName":"startup","initialBalance":10.00,"idempotencyKey":"%s"}
+                            """.formatted(key)))
+                    .build());
+            Matcher matcher = CARD_ID.matcher(created.body());
+            assertThat(matcher.find()).as("create response %s", created.body()).isTrue();
+            HttpResponse<String> spent = client.send(HttpRequest.newBuilder(URI.create(base + "/" + matcher.group(1) + "/spend"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("""
+                            {"amount":1.00,"idempotencyKey":"%s"}
+                            """.formatted(key)))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertThat(spent.statusCode()).as("spend response %s", spent.body()).isEqualTo(200);
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+        } finally {
+            process.destroy();
+            process.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private HttpResponse<String> awaitServer(Process process, HttpRequest request) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            assertThat(process.isAlive()).as("application exited with %s", process.isAlive() ? null : process.exitValue())
+                    .isTrue();
+            try {
+                return client.send(request, HttpResponse.BodyHandlers.ofString());
+            } catch (ConnectException ex) {
+                Thread.sleep(10);
+            }
+        }
+        throw new IllegalStateException("application did not start within two minutes");
+    }
+
+    private static Path findJar(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("no executable jar in " + directory));
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.virtualCard.benchmark;
+
+import com.example.virtualCard.config.TransferProperties;
+import com.example.virtualCard.dto.CardOperationResult;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import com.example.virtualCard.services.CardService;
+import com.example.virtualCard.services.PooledCreditSettler;
+import com.example.virtualCard.services.ReconciliationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.virtualCard.dto.CardOperationResults.isSuccessful;
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many threads transferring in both directions between a handful of cards, so most pairs
+ * are locked from both ends at once, followed by a payout fan-in where every thread pays
+ * into one pooled card. Asserts no transfer times out on a deadlock and funds are conserved.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransferContentionBenchmark {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 250;
+    private static final int CARDS = 6;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("10000.00");
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private PooledCreditSettler pooledCreditSettler;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDb() {
+        transferProperties.getPooledCards().clear();
+        idempotencyRecordRepository.deleteAll();
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void bidirectionalTransfersBetweenFewCards() throws Exception {
+        List<UUID> cards = openCards(CARDS, "bidi");
+
+        AtomicInteger succeeded = new AtomicInteger();
+        long nanos = runConcurrently(thread -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                int from = random.nextInt(CARDS);
+                int to = (from + 1 + random.nextInt(CARDS - 1)) % CARDS;
+                CardOperationResult result = cardService.transfer(cards.get(from), cards.get(to),
+                        new BigDecimal(random.nextInt(1, 50)), "bidi-" + thread + "-" + i);
+                if (isSuccessful(result)) {
+                    succeeded.incrementAndGet();
+                }
+            }
+        });
+
+        report("bidirectional, " + CARDS + " cards", nanos, succeeded.get());
+        assertThat(totalBalance(cards)).isEqualByComparingTo(OPENING_BALANCE.multiply(BigDecimal.valueOf(CARDS)));
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    @Test
+    void payoutsIntoOnePooledCard() throws Exception {
+        UUID pool = orThrow(cardService.createCard("pool", BigDecimal.ZERO, "payout-pool")).getId();
+        transferProperties.getPooledCards().add(pool);
+        List<UUID> payers = openCards(THREADS, "payout");
+
+        long nanos = runConcurrently(thread -> {
+            for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                orThrow(cardService.transfer(payers.get(thread), pool, BigDecimal.ONE, "payout-" + thread + "-" + i));
+            }
+        });
+        int settled = pooledCreditSettler.settle();
+
+        report("pooled payouts, " + THREADS + " payers", nanos, THREADS * TRANSFERS_PER_THREAD);
+        assertThat(settled).isEqualTo(THREADS * TRANSFERS_PER_THREAD);
+        assertThat(cardService.getCard(pool).getBalance()).isEqualByComparingTo(BigDecimal.valueOf(settled));
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    private List<UUID> openCards(int count, String prefix) {
+        List<UUID> cards = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            cards.add(orThrow(cardService.createCard(prefix + "-" + i, OPENING_BALANCE, prefix + "-create-" + i)).getId());
+        }
+        return cards;
+    }
+
+    private BigDecimal totalBalance(List<UUID> cards) {
+        return cards.stream().map(id -> cardService.getCard(id).getBalance()).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private long runConcurrently(Worker worker) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                worker.run(thread);
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdownNow();
+        return elapsed;
+    }
+
+    private static void report(String scenario, long nanos, int succeeded) {
+        int attempted = THREADS * TRANSFERS_PER_THREAD;
+        System.out.printf("%s: %d transfers (%d succeeded) in %d ms, %.0f transfers/s%n",
+                scenario, attempted, succeeded, TimeUnit.NANOSECONDS.toMillis(nanos), attempted * 1e9 / nanos);
+    }
+
+    @FunctionalInterface
+    private interface Worker {
+        void run(int thread) throws Exception;
+    }
+}
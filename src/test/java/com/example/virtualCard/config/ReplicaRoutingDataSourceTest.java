@@ -0,0 +1,116 @@
+package com.example.virtualCard.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection connection;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setup() throws Exception {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setMaxLag(Duration.ofMillis(500));
+        meterRegistry = new SimpleMeterRegistry();
+        routing = new ReplicaRoutingDataSource("test", primary, replica, properties, meterRegistry);
+        lenient().when(primary.getConnection()).thenReturn(connection);
+        lenient().when(replica.getConnection()).thenReturn(connection);
+    }
+
+    @AfterEach
+    void reset() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReadConsistency.clear();
+    }
+
+    @Test
+    void writeTransactionsUsePrimary() throws Exception {
+        routing.recordLag(0, System.currentTimeMillis());
+
+        routing.getConnection();
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void readOnlyTransactionsUseFreshReplica() throws Exception {
+        routing.recordLag(10, System.currentTimeMillis());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routing.getConnection();
+
+        verify(replica).getConnection();
+        assertThat(routeCount("replica", "read")).isEqualTo(1);
+    }
+
+    @Test
+    void laggingReplicaFallsBackToPrimary() throws Exception {
+        routing.recordLag(5_000, System.currentTimeMillis());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routing.getConnection();
+
+        verify(primary).getConnection();
+        assertThat(routeCount("primary", "replica_lagging")).isEqualTo(1);
+    }
+
+    @Test
+    void unprobedReplicaIsNotUsed() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        routing.getConnection();
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void callerTokenNewerThanReplicaUsesPrimary() throws Exception {
+        long probedAt = System.currentTimeMillis();
+        routing.recordLag(100, probedAt);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReadConsistency.require(probedAt - 50);
+
+        routing.getConnection();
+
+        verify(primary).getConnection();
+        assertThat(routeCount("primary", "read_your_writes")).isEqualTo(1);
+
+        ReadConsistency.require(probedAt - 200);
+        routing.getConnection();
+        verify(replica).getConnection();
+    }
+
+    private double routeCount(String target, String reason) {
+        return meterRegistry.get("virtualcard.datasource.route")
+                .tag("target", target)
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+}
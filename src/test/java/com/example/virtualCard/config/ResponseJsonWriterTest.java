@@ -0,0 +1,73 @@
+package com.example.virtualCard.config;
+
+import com.example.virtualCard.dto.CardResponse;
+import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseJsonWriterTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final ResponseJsonWriter writer = new ResponseJsonWriter(objectMapper);
+
+    @Test
+    void cardMatchesReflectiveSerialization() throws Exception {
+        CardResponse card = new CardResponse(UUID.randomUUID(), "Jo", new BigDecimal("12.50"), CardStatus.ACTIVE,
+                LocalDateTime.of(2026, 1, 2, 3, 4));
+
+        assertThat(objectMapper.readTree(buffered(card))).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(card)));
+    }
+
+    @Test
+    void streamedTransactionListMatchesReflectiveSerialization() throws Exception {
+        UUID cardId = UUID.randomUUID();
+        List<TransactionResponse> transactions = List.of(
+                new TransactionResponse(UUID.randomUUID(), cardId, new BigDecimal("5.00"), TransactionType.SPEND,
+                        "k1", TransactionStatus.SUCCESS, null, null, new BigDecimal("95.00"),
+                        LocalDateTime.of(2026, 1, 2, 3, 4, 5, 123_000_000)),
+                new TransactionResponse(UUID.randomUUID(), cardId, new BigDecimal("900.00"), TransactionType.SPEND,
+                        "k2", TransactionStatus.DECLINED, DeclineReason.INSUFFICIENT_BALANCE, UUID.randomUUID(),
+                        new BigDecimal("95.00"), LocalDateTime.now()));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeArray(transactions, out);
+
+        assertThat(objectMapper.readTree(out.toString()))
+                .isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(transactions)));
+    }
+
+    @Test
+    void linesAreNewlineDelimitedAndLeaveStreamOpen() throws Exception {
+        TransactionResponse transaction = new TransactionResponse(UUID.randomUUID(), UUID.randomUUID(),
+                BigDecimal.ONE, TransactionType.TOPUP, "k3", TransactionStatus.SUCCESS, null, null, null,
+                LocalDateTime.now());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        writer.writeLines(List.of(transaction, transaction), out);
+        writer.writeLines(List.of(transaction), out);
+
+        String[] lines = out.toString().split("\n");
+        assertThat(out.toString()).endsWith("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines[2])).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsString(transaction)));
+    }
+
+    private String buffered(Object value) throws Exception {
+        StringBuilder json = new StringBuilder();
+        writer.writeBuffered(value, buffer -> json.append(buffer.toString()));
+        return json.toString();
+    }
+}
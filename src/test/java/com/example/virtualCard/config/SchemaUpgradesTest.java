@@ -0,0 +1,103 @@
+package com.example.virtualCard.config;
+
+import com.example.virtualCard.VirtualCardApplication;
+import com.example.virtualCard.dto.CardOperationResult;
+import com.example.virtualCard.services.CardService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application with ddl-auto=update on a database holding the baseline schema, as
+ * Hibernate created it before idempotency keys moved out of {@code transactions}, plus the
+ * decline_reason column as created before CARD_NOT_ACTIVE existed. The PostgreSQL variant
+ * needs {@code -Dpostgres=true} and a non-root user.
+ */
+class SchemaUpgradesTest {
+
+    private static final String[] BASELINE_SCHEMA = {
+            """
+            create table cards (balance NUMERIC CHECK (balance >= 0) not null, created_at timestamp(6), version bigint,
+                id uuid not null, card_status varchar(255), cardholder_name varchar(255),
+                primary key (id))""",
+            """
+            create table transactions (amount numeric(38,2), created_at timestamp(6), card_id uuid not null,
+                id uuid not null, idempotency_key varchar(100) not null, status varchar(255), type varchar(255),
+                primary key (id))""",
+            "alter table if exists transactions add constraint UKq4w1xj7fgqwu4dbyy3cs8qjgs unique (idempotency_key)",
+            """
+            alter table if exists transactions add constraint FKp2mhq2ecr0ob7t1mcw1ikpsjf
+                foreign key (card_id) references cards""",
+            """
+            alter table transactions add column decline_reason varchar(255)
+                check (decline_reason in ('INSUFFICIENT_BALANCE','VELOCITY_LIMIT'))"""
+    };
+
+    @Test
+    void upgradedH2BaselineAcceptsSharedKeys() {
+        upgradeAndTransfer("jdbc:h2:mem:baseline-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+                "sa", "", "org.h2.Driver");
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "postgres", matches = "true")
+    void upgradedPostgresBaselineAcceptsSharedKeys() throws Exception {
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            upgradeAndTransfer(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "", "org.postgresql.Driver");
+        }
+    }
+
+    private static void upgradeAndTransfer(String url, String username, String password, String driver) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, username, password);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String statement : BASELINE_SCHEMA) {
+            jdbcTemplate.execute(statement);
+        }
+        assertThat(uniqueKeyConstraints(jdbcTemplate)).isOne();
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VirtualCardApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url, "--spring.datasource.username=" + username,
+                        "--spring.datasource.password=" + password, "--spring.datasource.driver-class-name=" + driver,
+                        "--spring.jpa.hibernate.ddl-auto=update")) {
+            assertThat(uniqueKeyConstraints(jdbcTemplate)).isZero();
+
+            CardService cardService = context.getBean(CardService.class);
+            UUID source = orThrow(cardService.createCard("Ann", new BigDecimal("20.00"), "upgrade-create-1")).getId();
+            UUID destination = orThrow(cardService.createCard("Ben", BigDecimal.ZERO, "upgrade-create-2")).getId();
+
+            assertThat(cardService.transfer(source, destination, new BigDecimal("5.00"), "upgrade-transfer").outcome())
+                    .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+            assertThat(cardService.topup(source, BigDecimal.ONE, "upgrade-topup").outcome())
+                    .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+            assertThat(cardService.topup(destination, BigDecimal.ONE, "upgrade-topup").outcome())
+                    .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+            jdbcTemplate.update("update transactions set status = 'DECLINED', decline_reason = 'CARD_NOT_ACTIVE'"
+                    + " where idempotency_key = 'upgrade-topup'");
+            context.getBean(SchemaUpgrades.class).afterSingletonsInstantiated();
+            assertThat(context.getBean(SchemaUpgrades.class).widenDeclineReasonChecks()).isZero();
+        }
+    }
+
+    private static int uniqueKeyConstraints(JdbcTemplate jdbcTemplate) {
+        Integer count = jdbcTemplate.queryForObject("""
+                select count(*) from information_schema.table_constraints tc
+                join information_schema.key_column_usage kcu
+                  on kcu.constraint_schema = tc.constraint_schema and kcu.constraint_name = tc.constraint_name
+                where tc.constraint_type = 'UNIQUE' and lower(tc.table_name) = 'transactions'
+                  and lower(kcu.column_name) = 'idempotency_key'
+                """, Integer.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.virtualCard.controller;
+
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import com.example.virtualCard.services.CardService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class CardControllerETagTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @AfterEach
+    void cleanDb() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void cardPollIsNotModifiedUntilVersionChanges() throws Exception {
+        Card card = orThrow(cardService.createCard("Dana", new BigDecimal("50.00"), "etag-create-1"));
+        String url = "/api/v1/cards/" + card.getId();
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Content-Length"))
+                .andExpect(jsonPath("$.cardholderName").value("Dana"))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        cardService.spend(card.getId(), new BigDecimal("5.00"), "etag-spend-1");
+
+        String next = mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(next).isNotEqualTo(etag);
+    }
+
+    @Test
+    void historyPollIsNotModifiedUntilNewTransaction() throws Exception {
+        Card card = orThrow(cardService.createCard("Eve", new BigDecimal("10.00"), "etag-create-2"));
+        String url = "/api/v1/cards/" + card.getId() + "/transactions";
+
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        // declined spends leave the card version alone but still add a history row
+        cardService.spend(card.getId(), new BigDecimal("50.00"), "etag-spend-2");
+
+        mockMvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isOk());
+    }
+}
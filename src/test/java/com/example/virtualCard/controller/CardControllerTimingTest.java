@@ -0,0 +1,112 @@
+package com.example.virtualCard.controller;
+
+import com.example.virtualCard.config.RequestTimingFilter;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import com.example.virtualCard.services.CardService;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+class CardControllerTimingTest {
+
+    private static final String EVENT_NAME = "com.example.virtualCard.Request";
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private RequestTimingFilter requestTimingFilter;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setup() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).addFilters(requestTimingFilter).build();
+    }
+
+    @AfterEach
+    void cleanDb() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void spendReportsPhaseTimingsInHeaderAndJfr() throws Exception {
+        Card card = orThrow(cardService.createCard("Ivy", new BigDecimal("50.00"), "timing-create-1"));
+        Path dump = Files.createTempFile("request-timing", ".jfr");
+
+        String serverTiming;
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT_NAME).withThreshold(Duration.ZERO);
+            recording.start();
+            serverTiming = mockMvc.perform(post("/api/v1/cards/" + card.getId() + "/spend")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"amount\": 5.00, \"idempotencyKey\": \"timing-spend-1\"}"))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader("Server-Timing");
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        assertThat(serverTiming).contains("conn;", "lock;", "idem;", "commit;", "total;dur=");
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals(EVENT_NAME))
+                .toList();
+        Files.deleteIfExists(dump);
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("method")).isEqualTo("POST");
+        assertThat(event.getInt("status")).isEqualTo(200);
+        assertThat(event.getDuration("lock")).isPositive();
+        assertThat(event.getDuration("commit")).isPositive();
+        assertThat(event.getDuration("serialization")).isPositive();
+    }
+
+    @Test
+    void historyIsStreamedWithTimingHeader() throws Exception {
+        Card card = orThrow(cardService.createCard("Ivy", new BigDecimal("50.00"), "timing-create-2"));
+        cardService.spend(card.getId(), new BigDecimal("5.00"), "timing-spend-2");
+
+        mockMvc.perform(get("/api/v1/cards/" + card.getId() + "/transactions"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("Server-Timing"))
+                .andExpect(header().doesNotExist("Content-Length"))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+}
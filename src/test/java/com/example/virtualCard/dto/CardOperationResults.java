@@ -0,0 +1,36 @@
+package com.example.virtualCard.dto;
+
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.exception.CardNotActiveException;
+import com.example.virtualCard.exception.IdempotencyConflictException;
+import com.example.virtualCard.exception.IdempotencyInProgressException;
+import com.example.virtualCard.exception.InsufficientBalanceException;
+import com.example.virtualCard.exception.SpendLimitExceededException;
+
+/**
+ * Test shorthand for {@link CardOperationResult}: unwraps the card or throws the exception the
+ * API used before declines became results.
+ */
+public final class CardOperationResults {
+
+    private CardOperationResults() {
+    }
+
+    public static boolean isSuccessful(CardOperationResult result) {
+        return result.outcome() == CardOperationResult.Outcome.SUCCESS
+                || result.outcome() == CardOperationResult.Outcome.REPLAYED;
+    }
+
+    public static Card orThrow(CardOperationResult result) {
+        return switch (result.outcome()) {
+            case SUCCESS, REPLAYED -> result.card();
+            case DECLINED -> throw switch (result.declineReason()) {
+                case INSUFFICIENT_BALANCE -> new InsufficientBalanceException();
+                case VELOCITY_LIMIT -> new SpendLimitExceededException();
+                case CARD_NOT_ACTIVE -> new CardNotActiveException();
+            };
+            case IN_PROGRESS -> throw new IdempotencyInProgressException();
+            case CONFLICT -> throw new IdempotencyConflictException(result.message());
+        };
+    }
+}
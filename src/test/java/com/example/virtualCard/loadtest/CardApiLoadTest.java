@@ -0,0 +1,298 @@
+package com.example.virtualCard.loadtest;
+
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.repository.TransactionRepository;
+import com.example.virtualCard.services.ReconciliationService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistrar;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the card HTTP API against a real PostgreSQL, started from the embedded binaries
+ * on the test classpath, so row locks and version checks behave as in production. Cards are
+ * picked with Zipf skew, and a share of requests are resent with the same idempotency key.
+ * Run with {@code mvn test -Ploadtest}; tune with {@code -Dloadtest.threads},
+ * {@code .operations}, {@code .cards}, {@code .zipf}, {@code .retry-rate} and
+ * {@code .mix=create:5,topup:25,spend:50,history:20}. PostgreSQL refuses to run as root.
+ * The server is a context bean, so it stops only after the context has closed its pool. The
+ * test application.properties replaces the main one, so production settings are set below.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+class CardApiLoadTest {
+
+    private static final Pattern CARD_ID = Pattern.compile("\"id\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+
+    private static final int THREADS = Integer.getInteger("loadtest.threads", 32);
+    private static final int OPERATIONS = Integer.getInteger("loadtest.operations", 20_000);
+    private static final int CARDS = Integer.getInteger("loadtest.cards", 500);
+    private static final double ZIPF = Double.parseDouble(System.getProperty("loadtest.zipf", "1.1"));
+    private static final double RETRY_RATE = Double.parseDouble(System.getProperty("loadtest.retry-rate", "0.05"));
+    private static final String MIX = System.getProperty("loadtest.mix", "create:5,topup:25,spend:50,history:20");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    enum Operation { CREATE, TOPUP, SPEND, HISTORY }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class PostgresConfig {
+
+        @Bean(destroyMethod = "close")
+        EmbeddedPostgres embeddedPostgres() throws IOException {
+            return EmbeddedPostgres.start();
+        }
+
+        @Bean
+        DynamicPropertyRegistrar postgresProperties(EmbeddedPostgres postgres) {
+            return registry -> {
+                registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+                registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+                registry.add("spring.datasource.username", () -> "postgres");
+                registry.add("spring.datasource.password", () -> "");
+            };
+        }
+    }
+
+    @DynamicPropertySource
+    static void productionSettings(DynamicPropertyRegistry registry) {
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "update");
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> THREADS);
+        registry.add("virtualcard.admission.enabled", () -> "true");
+        registry.add("virtualcard.admission.per-card-max-in-flight", () -> "2");
+        registry.add("virtualcard.admission.per-card-max-queued", () -> "4");
+        registry.add("virtualcard.admission.global-max-in-flight", () -> "8");
+        registry.add("virtualcard.admission.global-max-queued", () -> "64");
+        registry.add("virtualcard.admission.max-queue-wait", () -> "PT0.1S");
+        registry.add("virtualcard.admission.target-lock-wait", () -> "PT0.02S");
+        registry.add("virtualcard.admission.target-connection-wait", () -> "PT0.005S");
+        registry.add("virtualcard.audit.enabled", () -> "true");
+        registry.add("virtualcard.audit.path", () -> "target/loadtest/audit.jsonl");
+    }
+
+    @Test
+    void mixedTrafficKeepsTheLedgerConsistent() throws Exception {
+        List<String> cards = new ArrayList<>();
+        for (int i = 0; i < CARDS; i++) {
+            cards.add(createCard("seed-" + i, new BigDecimal("500.00")));
+        }
+        ZipfSampler sampler = new ZipfSampler(CARDS, ZIPF);
+        Operation[] mix = parseMix(MIX);
+
+        Map<Operation, long[]> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, AtomicInteger> counts = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new long[OPERATIONS]);
+            counts.put(operation, new AtomicInteger());
+        }
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        AtomicInteger retries = new AtomicInteger();
+        AtomicInteger replayMismatches = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int op = next.getAndIncrement(); op < OPERATIONS; op = next.getAndIncrement()) {
+                    Operation operation = mix[random.nextInt(mix.length)];
+                    HttpRequest request = request(operation, cards.get(sampler.sample(random)), op, random);
+                    long begin = System.nanoTime();
+                    HttpResponse<String> response = send(request);
+                    long elapsed = System.nanoTime() - begin;
+                    latencies.get(operation)[counts.get(operation).getAndIncrement()] = elapsed;
+                    statuses.computeIfAbsent(response.statusCode(), code -> new AtomicInteger()).incrementAndGet();
+
+                    // A committed outcome (approved or declined) must replay as-is; a 409 lost a
+                    // race and rolled back, so its retry may legitimately go either way. A 429 on
+                    // either side was never admitted and says nothing about the outcome.
+                    if (operation != Operation.HISTORY && random.nextDouble() < RETRY_RATE) {
+                        retries.incrementAndGet();
+                        HttpResponse<String> retry = send(request);
+                        boolean comparable = response.statusCode() != 409 && response.statusCode() != 429
+                                && retry.statusCode() != 429;
+                        if (comparable && retry.statusCode() != response.statusCode()) {
+                            replayMismatches.incrementAndGet();
+                            System.out.printf("replay mismatch %s: %d %s -> %d %s%n", request.uri(),
+                                    response.statusCode(), response.body(), retry.statusCode(), retry.body());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdownNow();
+
+        System.out.printf("%d operations on %d threads in %d ms: %.0f ops/s (%d duplicate-key retries)%n",
+                OPERATIONS, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsed), OPERATIONS * 1e9 / elapsed, retries.get());
+        for (Operation operation : Operation.values()) {
+            report(operation, Arrays.copyOf(latencies.get(operation), counts.get(operation).get()));
+        }
+        System.out.println("status codes: " + statuses);
+
+        assertThat(statuses.keySet()).allMatch(code -> code < 500);
+        assertThat(replayMismatches.get()).isZero();
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+        assertThat(transactionRepository.count()).isPositive();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from cards where balance < 0", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from transactions where status = ?", Long.class,
+                TransactionStatus.PENDING.name())).isZero();
+    }
+
+    private HttpRequest request(Operation operation, String cardId, int op, ThreadLocalRandom random) {
+        BigDecimal amount = BigDecimal.valueOf(random.nextInt(1, 5_000), 2);
+        return switch (operation) {
+            case CREATE -> post("/create", """
+                    {"cardholderName":"load-%d","initialBalance":%s,"idempotencyKey":"create-%d"}
+                    """.formatted(op, amount, op));
+            case TOPUP -> post("/" + cardId + "/topup", amountBody(amount, "topup-" + op));
+            case SPEND -> post("/" + cardId + "/spend", amountBody(amount, "spend-" + op));
+            case HISTORY -> HttpRequest.newBuilder(uri("/" + cardId + "/transactions")).GET().build();
+        };
+    }
+
+    private String createCard(String key, BigDecimal balance) {
+        HttpResponse<String> response = send(post("/create", """
+                {"cardholderName":"%s","initialBalance":%s,"idempotencyKey":"%s"}
+                """.formatted(key, balance, key)));
+        Matcher matcher = CARD_ID.matcher(response.body());
+        assertThat(matcher.find()).as("create response %s", response.body()).isTrue();
+        return UUID.fromString(matcher.group(1)).toString();
+    }
+
+    private static String amountBody(BigDecimal amount, String key) {
+        return """
+                {"amount":%s,"idempotencyKey":"%s"}
+                """.formatted(amount, key);
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + "/api/v1/cards" + path);
+    }
+
+    private HttpResponse<String> send(HttpRequest request) {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Operation[] parseMix(String mix) {
+        List<Operation> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = Operation.valueOf(parts[0].toUpperCase());
+            for (int i = 0; i < Integer.parseInt(parts[1]); i++) {
+                weighted.add(operation);
+            }
+        }
+        return weighted.toArray(Operation[]::new);
+    }
+
+    private static void report(Operation operation, long[] nanos) {
+        if (nanos.length == 0) {
+            return;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-8s n=%-6d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms%n", operation, nanos.length,
+                percentile(nanos, 0.50), percentile(nanos, 0.95), percentile(nanos, 0.99), nanos[nanos.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+
+    /** Rank r (0-based) is drawn with probability proportional to 1 / (r + 1)^exponent. */
+    static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int size, double exponent) {
+            cumulative = new double[size];
+            double total = 0;
+            for (int rank = 0; rank < size; rank++) {
+                total += 1 / Math.pow(rank + 1, exponent);
+                cumulative[rank] = total;
+            }
+            for (int rank = 0; rank < size; rank++) {
+                cumulative[rank] /= total;
+            }
+        }
+
+        int sample(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.AdmissionProperties;
+import com.example.virtualCard.config.RequestTimings;
+import com.example.virtualCard.exception.AdmissionRejectedException;
+import com.example.virtualCard.exception.ApiErrorResponse;
+import com.example.virtualCard.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdmissionControlTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID hotCard = UUID.randomUUID();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void hotCardIsShedWhileOtherCardsAreAdmitted() throws Exception {
+        AdmissionControl admission = new AdmissionControl(properties(1, 1, 8), meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> inFlight = executor.submit(() -> admission.admit(hotCard, () -> {
+            holding.countDown();
+            await(release);
+            return "first";
+        }));
+        assertThat(holding.await(2, TimeUnit.SECONDS)).isTrue();
+        Future<String> queued = executor.submit(() -> admission.admit(hotCard, () -> "queued"));
+        Thread.sleep(50);
+
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(hotCard, () -> "rejected"));
+        assertThat(admission.admit(UUID.randomUUID(), () -> "other card")).isEqualTo("other card");
+
+        release.countDown();
+        assertThat(inFlight.get(2, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(2, TimeUnit.SECONDS)).isEqualTo("queued");
+        assertThat(meterRegistry.get("virtualcard.admission.rejected").tag("scope", "card").counter().count())
+                .isEqualTo(1);
+        assertThat(admission.cardGates()).isZero();
+    }
+
+    @Test
+    void transferIsAdmittedForBothCards() throws Exception {
+        AdmissionControl admission = new AdmissionControl(properties(1, 0, 8), meterRegistry);
+        UUID coldCard = UUID.randomUUID();
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> inFlight = executor.submit(() -> admission.admit(hotCard, () -> {
+            holding.countDown();
+            await(release);
+            return "hot";
+        }));
+        assertThat(holding.await(2, TimeUnit.SECONDS)).isTrue();
+
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(coldCard, hotCard, () -> "into hot"));
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(hotCard, coldCard, () -> "out of hot"));
+        assertThat(admission.admit(coldCard, null, () -> "into pool")).isEqualTo("into pool");
+        assertThat(admission.admit(coldCard, () -> "cold")).isEqualTo("cold");
+
+        release.countDown();
+        assertThat(inFlight.get(2, TimeUnit.SECONDS)).isEqualTo("hot");
+        assertThat(admission.cardGates()).isZero();
+    }
+
+    @Test
+    void queuedRequestIsRejectedAfterMaxQueueWait() throws Exception {
+        AdmissionProperties properties = properties(1, 4, 8);
+        properties.setMaxQueueWait(Duration.ofMillis(50));
+        AdmissionControl admission = new AdmissionControl(properties, meterRegistry);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> admission.admit(hotCard, () -> {
+            holding.countDown();
+            await(release);
+            return null;
+        }));
+        assertThat(holding.await(2, TimeUnit.SECONDS)).isTrue();
+
+        long started = System.nanoTime();
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(hotCard, () -> "late"));
+        assertThat(System.nanoTime() - started).isLessThan(TimeUnit.SECONDS.toNanos(1));
+        release.countDown();
+    }
+
+    @Test
+    void globalLimitBacksOffOnConnectionWaitAndRecovers() {
+        AdmissionControl admission = new AdmissionControl(properties(4, 4, 8), meterRegistry);
+        RequestTimings.begin();
+        try {
+            admission.admit(hotCard, () -> waitIn(RequestTimings.Phase.CONNECTION, 30));
+            assertThat(globalLimit()).isEqualTo(6.0);
+
+            for (int i = 0; i < 20; i++) {
+                admission.admit(hotCard, () -> null);
+            }
+            assertThat(globalLimit()).isEqualTo(8.0);
+        } finally {
+            RequestTimings.clear();
+        }
+    }
+
+    @Test
+    void hotCardLockWaitsDoNotThrottleColdCards() throws Exception {
+        AdmissionControl admission = new AdmissionControl(properties(2, 64, 8), meterRegistry);
+        AtomicBoolean hotRunning = new AtomicBoolean(true);
+        List<Future<?>> hot = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            hot.add(executor.submit(() -> {
+                RequestTimings.begin();
+                while (hotRunning.get()) {
+                    try {
+                        admission.admit(hotCard, () -> waitIn(RequestTimings.Phase.LOCK, 30));
+                    } catch (AdmissionRejectedException ignored) {
+                    }
+                }
+                RequestTimings.clear();
+            }));
+        }
+        Thread.sleep(100);
+
+        long started = System.nanoTime();
+        List<Future<?>> cold = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            UUID coldCard = UUID.randomUUID();
+            cold.add(executor.submit(() -> {
+                for (int op = 0; op < 50; op++) {
+                    admission.admit(coldCard, () -> {
+                        sleep(2);
+                        return null;
+                    });
+                }
+            }));
+        }
+        for (Future<?> future : cold) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        long coldElapsed = System.nanoTime() - started;
+        hotRunning.set(false);
+        for (Future<?> future : hot) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        // 50 sequential 2ms operations per cold card; a global limit squeezed by the hot card
+        // would queue every one of them behind its 30ms lock waits.
+        assertThat(coldElapsed).isLessThan(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(globalLimit()).isEqualTo(8.0);
+        assertThat(meterRegistry.get("virtualcard.admission.rejected").tag("scope", "global").counter().count())
+                .isZero();
+    }
+
+    @Test
+    void concurrentBurstNeverExceedsTheCardLimit() throws Exception {
+        AdmissionControl admission = new AdmissionControl(properties(2, 64, 8), meterRegistry);
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(executor.submit(() -> {
+                try {
+                    admission.admit(hotCard, () -> {
+                        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        sleep(5);
+                        running.decrementAndGet();
+                        return null;
+                    });
+                } catch (AdmissionRejectedException ignored) {
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+        assertThat(admission.cardGates()).isZero();
+    }
+
+    @Test
+    void rejectionMapsTo429WithRetryAfter() {
+        ResponseEntity<ApiErrorResponse> response = new GlobalExceptionHandler()
+                .handleAdmissionRejected(new AdmissionRejectedException(Duration.ofMillis(1500)));
+
+        assertThat(response.getStatusCode().value()).isEqualTo(429);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    private double globalLimit() {
+        return meterRegistry.get("virtualcard.admission.global.limit").gauge().value();
+    }
+
+    private static AdmissionProperties properties(int perCardInFlight, int perCardQueued, int globalInFlight) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setEnabled(true);
+        properties.setPerCardMaxInFlight(perCardInFlight);
+        properties.setPerCardMaxQueued(perCardQueued);
+        properties.setGlobalMaxInFlight(globalInFlight);
+        properties.setMaxQueueWait(Duration.ofSeconds(2));
+        return properties;
+    }
+
+    private static Object waitIn(RequestTimings.Phase phase, long millis) {
+        try (RequestTimings.Span ignored = RequestTimings.time(phase)) {
+            sleep(millis);
+        }
+        return null;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.AuditProperties;
+import com.example.virtualCard.dto.AuditEvent;
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.enums.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.unit.DataSize;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID cardId = UUID.randomUUID();
+    private final UUID destinationId = UUID.randomUUID();
+
+    @Test
+    void writesJsonLines() throws Exception {
+        Path file = directory.resolve("audit/audit.jsonl");
+        AuditLog auditLog = new AuditLog(properties(file, AuditProperties.Format.JSON_LINES), meterRegistry,
+                JsonMapper.shared());
+
+        auditLog.record(AuditEvent.applied(TransactionType.SPEND, cardId, destinationId, new BigDecimal("12.50"), "k1"));
+        auditLog.record(AuditEvent.declined(cardId, null, new BigDecimal("99.00"), "k2", DeclineReason.INSUFFICIENT_BALANCE));
+        auditLog.shutdown();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(2);
+        JsonNode applied = JsonMapper.shared().readTree(lines.get(0));
+        assertThat(applied.get("outcome").asString()).isEqualTo("APPLIED");
+        assertThat(applied.get("counterpartyCardId").asString()).isEqualTo(destinationId.toString());
+        assertThat(applied.get("amount").decimalValue()).isEqualByComparingTo("12.50");
+        JsonNode declined = JsonMapper.shared().readTree(lines.get(1));
+        assertThat(declined.get("declineReason").asString()).isEqualTo("INSUFFICIENT_BALANCE");
+        assertThat(declined.has("counterpartyCardId")).isFalse();
+        assertThat(written()).isEqualTo(2);
+    }
+
+    @Test
+    void binaryRecordsRoundTrip() throws Exception {
+        Path file = directory.resolve("audit.bin");
+        AuditLog auditLog = new AuditLog(properties(file, AuditProperties.Format.BINARY), meterRegistry,
+                JsonMapper.shared());
+        List<AuditEvent> events = List.of(
+                AuditEvent.applied(TransactionType.ISSUANCE, cardId, null, new BigDecimal("1000.00"), "issue"),
+                AuditEvent.applied(TransactionType.SPEND, cardId, destinationId, new BigDecimal("0.01"), "transfer"),
+                AuditEvent.declined(cardId, null, new BigDecimal("123456789.99"), "ключ", DeclineReason.VELOCITY_LIMIT),
+                AuditEvent.replayed(TransactionType.TOPUP, cardId, null, new BigDecimal("5"), "retry"));
+
+        events.forEach(auditLog::record);
+        auditLog.shutdown();
+
+        List<AuditEvent> read = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            for (AuditEvent event = AuditEventEncoder.readBinary(in); event != null; event = AuditEventEncoder.readBinary(in)) {
+                read.add(event);
+            }
+        }
+        assertThat(read).isEqualTo(events);
+    }
+
+    @Test
+    void eventsArePublishedOnlyAfterCommit() throws Exception {
+        AuditLog auditLog = new AuditLog(properties(directory.resolve("audit.jsonl"), AuditProperties.Format.JSON_LINES),
+                meterRegistry, JsonMapper.shared());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            auditLog.record(AuditEvent.applied(TransactionType.TOPUP, cardId, null, BigDecimal.TEN, "committed"));
+            assertThat(published()).isZero();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            auditLog.record(AuditEvent.applied(TransactionType.TOPUP, cardId, null, BigDecimal.TEN, "rolled-back"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        auditLog.shutdown();
+
+        assertThat(published()).isEqualTo(1);
+        assertThat(Files.readAllLines(directory.resolve("audit.jsonl"))).singleElement().asString().contains("committed");
+    }
+
+    @Test
+    void disabledLogRecordsNothing() {
+        AuditLog auditLog = new AuditLog(new AuditProperties(), meterRegistry, JsonMapper.shared());
+
+        auditLog.record(AuditEvent.applied(TransactionType.SPEND, cardId, null, BigDecimal.ONE, "k"));
+
+        assertThat(published()).isZero();
+        assertThat(meterRegistry.get("virtualcard.audit.events").tag("result", "dropped").counter().count()).isZero();
+    }
+
+    @Test
+    void eventsMissingRequiredFieldsFailInTheProducer() {
+        assertThatThrownBy(() -> new AuditEvent(0L, null, TransactionType.SPEND, cardId, null, BigDecimal.ONE, "k", null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("outcome");
+        assertThatThrownBy(() -> AuditEvent.applied(TransactionType.SPEND, cardId, null, BigDecimal.ONE, null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessage("idempotencyKey");
+    }
+
+    @Test
+    void eventThatCannotBeEncodedIsDroppedAlone() throws Exception {
+        Path file = directory.resolve("audit.bin");
+        AuditLog auditLog = new AuditLog(properties(file, AuditProperties.Format.BINARY), meterRegistry,
+                JsonMapper.shared());
+
+        auditLog.record(event(0));
+        auditLog.record(AuditEvent.applied(TransactionType.SPEND, cardId, null, BigDecimal.ONE, "k".repeat(70_000)));
+        auditLog.record(event(2));
+        auditLog.shutdown();
+
+        List<String> keys = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            for (AuditEvent event = AuditEventEncoder.readBinary(in); event != null; event = AuditEventEncoder.readBinary(in)) {
+                keys.add(event.idempotencyKey());
+            }
+        }
+        assertThat(keys).containsExactly("0", "2");
+        assertThat(dropped()).isEqualTo(1);
+        assertThat(written()).isEqualTo(2);
+    }
+
+    @Test
+    void writerRecoversOnceTheFileIsWritableAgain() throws Exception {
+        Path blocker = Files.createFile(directory.resolve("audit"));
+        Path file = blocker.resolve("audit.jsonl");
+        AuditLog auditLog = new AuditLog(properties(file, AuditProperties.Format.JSON_LINES), meterRegistry,
+                JsonMapper.shared());
+
+        auditLog.record(event(0));
+        Thread.sleep(200);
+        assertThat(written()).isZero();
+        Files.delete(blocker);
+        auditLog.record(event(1));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (written() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        auditLog.shutdown();
+
+        assertThat(Files.readAllLines(file)).hasSize(2);
+        assertThat(written()).isEqualTo(2);
+        assertThat(dropped()).isZero();
+    }
+
+    @Test
+    void rotatesOnceTheFileReachesMaxSize() throws Exception {
+        Path file = directory.resolve("audit.jsonl");
+        AuditProperties properties = properties(file, AuditProperties.Format.JSON_LINES);
+        properties.setBatchSize(1);
+        properties.setMaxFileSize(DataSize.ofBytes(1));
+        properties.setMaxHistory(2);
+        AuditLog auditLog = new AuditLog(properties, meterRegistry, JsonMapper.shared());
+
+        for (int i = 0; i < 5; i++) {
+            auditLog.record(event(i));
+        }
+        auditLog.shutdown();
+
+        assertThat(Files.readAllLines(file)).isEmpty();
+        assertThat(Files.readAllLines(directory.resolve("audit.jsonl.1"))).singleElement().asString().contains("\"4\"");
+        assertThat(Files.readAllLines(directory.resolve("audit.jsonl.2"))).singleElement().asString().contains("\"3\"");
+        assertThat(directory.resolve("audit.jsonl.3")).doesNotExist();
+        assertThat(written()).isEqualTo(5);
+    }
+
+    @Test
+    void fullRingRejectsUntilDrained() {
+        AuditRingBuffer ring = new AuditRingBuffer(3);
+        assertThat(ring.capacity()).isEqualTo(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(event(i))).isTrue();
+        }
+        assertThat(ring.offer(event(4))).isFalse();
+
+        List<AuditEvent> batch = new ArrayList<>();
+        assertThat(ring.drainTo(batch, 2)).isEqualTo(2);
+        assertThat(ring.offer(event(4))).isTrue();
+        assertThat(ring.drainTo(batch, 10)).isEqualTo(3);
+        assertThat(batch).extracting(AuditEvent::idempotencyKey).containsExactly("0", "1", "2", "3", "4");
+        assertThat(ring.size()).isZero();
+    }
+
+    @Test
+    void concurrentProducersLoseNothingTheRingAccepted() throws Exception {
+        AuditRingBuffer ring = new AuditRingBuffer(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Integer>> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            int producer = p;
+            producers.add(executor.submit(() -> {
+                int accepted = 0;
+                for (int i = 0; i < 10_000; i++) {
+                    if (ring.offer(event(producer * 10_000 + i))) {
+                        accepted++;
+                    }
+                }
+                return accepted;
+            }));
+        }
+
+        List<AuditEvent> drained = new ArrayList<>();
+        int accepted = 0;
+        for (Future<Integer> producer : producers) {
+            while (!producer.isDone()) {
+                ring.drainTo(drained, 256);
+            }
+            accepted += producer.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        while (ring.drainTo(drained, 256) > 0) {
+            // drain the tail
+        }
+
+        assertThat(drained).hasSize(accepted).doesNotHaveDuplicates();
+    }
+
+    private AuditEvent event(int sequence) {
+        return AuditEvent.applied(TransactionType.SPEND, cardId, null, BigDecimal.ONE, String.valueOf(sequence));
+    }
+
+    private double published() {
+        return meterRegistry.get("virtualcard.audit.events").tag("result", "published").counter().count();
+    }
+
+    private double dropped() {
+        return meterRegistry.get("virtualcard.audit.events").tag("result", "dropped").counter().count();
+    }
+
+    private double written() {
+        return meterRegistry.get("virtualcard.audit.events").tag("result", "written").counter().count();
+    }
+
+    private static AuditProperties properties(Path file, AuditProperties.Format format) {
+        AuditProperties properties = new AuditProperties();
+        properties.setEnabled(true);
+        properties.setPath(file);
+        properties.setFormat(format);
+        return properties;
+    }
+}
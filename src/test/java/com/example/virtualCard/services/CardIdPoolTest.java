@@ -0,0 +1,58 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.IssuanceProperties;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.config.ShardingProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CardIdPoolTest {
+
+    private final ShardRouter shardRouter = new ShardRouter(new ShardingProperties());
+    private CardIdPool pool;
+
+    @AfterEach
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void takesPrefilledIdsAndTopsUpAfterADrain() {
+        pool = new CardIdPool(shardRouter, properties(16));
+        assertThat(pool.available(0)).isEqualTo(16);
+
+        Set<UUID> ids = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(pool.take(0));
+        }
+        assertThat(ids).hasSize(20);
+        assertThat(pool.available(0)).isZero();
+
+        pool.refill();
+        assertThat(pool.available(0)).isEqualTo(16);
+    }
+
+    @Test
+    void disabledPoolGeneratesIdsOnTheRequestedShard() {
+        pool = new CardIdPool(shardRouter, properties(0));
+
+        UUID id = pool.take(0);
+
+        assertThat(shardRouter.shardOf(id)).isZero();
+        assertThat(pool.available(0)).isZero();
+    }
+
+    private static IssuanceProperties properties(int poolSize) {
+        IssuanceProperties properties = new IssuanceProperties();
+        properties.setIdPoolSize(poolSize);
+        properties.setRefillInterval(Duration.ofHours(1));
+        return properties;
+    }
+}
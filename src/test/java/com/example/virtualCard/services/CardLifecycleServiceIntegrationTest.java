@@ -0,0 +1,134 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.dto.BulkStatusChangeResponse;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.exception.CardNotActiveException;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "virtualcard.lifecycle.chunk-size=3")
+class CardLifecycleServiceIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardLifecycleService cardLifecycleService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDb() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void blocksListedCardsInChunksAndBumpsVersion() {
+        List<UUID> ids = createCards(8, "bulk-ids");
+        long versionBefore = cardService.getCardVersion(ids.get(0));
+        List<UUID> request = new ArrayList<>(ids);
+        request.add(UUID.randomUUID());
+
+        BulkStatusChangeResponse response = cardLifecycleService.changeStatus(request, CardStatus.BLOCKED);
+
+        assertThat(response.matched()).isEqualTo(9);
+        assertThat(response.updated()).isEqualTo(8);
+        assertThat(response.chunks()).isEqualTo(3);
+        assertThat(cardService.getCard(ids.get(0)).getStatus()).isEqualTo(CardStatus.BLOCKED);
+        assertThat(cardService.getCardVersion(ids.get(0))).isEqualTo(versionBefore + 1);
+        assertThrows(CardNotActiveException.class,
+                () -> cardService.spend(ids.get(1), new BigDecimal("1.00"), "bulk-ids-spend"));
+        assertThrows(CardNotActiveException.class,
+                () -> cardService.topup(ids.get(2), new BigDecimal("1.00"), "bulk-ids-topup"));
+
+        BulkStatusChangeResponse repeat = cardLifecycleService.changeStatus(ids, CardStatus.BLOCKED);
+        assertThat(repeat.updated()).isZero();
+
+        BulkStatusChangeResponse closed = cardLifecycleService.changeStatus(ids, CardStatus.CLOSED);
+        assertThat(closed.updated()).isEqualTo(8);
+    }
+
+    @Test
+    void closesCardsMatchingFilter() {
+        List<UUID> ids = createCards(7, "bulk-filter");
+
+        BulkStatusChangeResponse response = cardLifecycleService.changeStatusWhere(
+                CardStatus.CLOSED, null, LocalDateTime.now().plusMinutes(1));
+
+        assertThat(response.updated()).isEqualTo(7);
+        assertThat(cardRepository.findAllById(ids)).allMatch(card -> card.getStatus() == CardStatus.CLOSED);
+    }
+
+    @Test
+    void rejectsUnsupportedTargetStatus() {
+        assertThrows(IllegalArgumentException.class,
+                () -> cardLifecycleService.changeStatus(List.of(UUID.randomUUID()), CardStatus.ACTIVE));
+    }
+
+    @Test
+    void blockingAlongsideInFlightSpendsKeepsLedgerConsistent() throws Exception {
+        List<UUID> ids = createCards(6, "bulk-race");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            UUID cardId = ids.get(i % ids.size());
+            String key = "bulk-race-spend-" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    cardService.spend(cardId, new BigDecimal("1.00"), key);
+                } catch (CardNotActiveException ignored) {
+                    // blocked before this spend took the row lock
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        BulkStatusChangeResponse response = cardLifecycleService.changeStatus(ids, CardStatus.BLOCKED);
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdownNow();
+
+        assertThat(response.updated()).isEqualTo(6);
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+        assertThrows(CardNotActiveException.class,
+                () -> cardService.spend(ids.get(0), new BigDecimal("1.00"), "bulk-race-after"));
+    }
+
+    private List<UUID> createCards(int count, String prefix) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Card card = orThrow(cardService.createCard("holder-" + i, new BigDecimal("100.00"), prefix + "-create-" + i));
+            ids.add(card.getId());
+        }
+        return ids;
+    }
+}
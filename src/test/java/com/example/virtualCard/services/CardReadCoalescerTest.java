@@ -0,0 +1,146 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.CoalescingProperties;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.exception.CardNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CardReadCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID cardId = UUID.randomUUID();
+
+    @Test
+    void concurrentLookupsShareOneQuery() throws Exception {
+        CardReadCoalescer coalescer = new CardReadCoalescer(meterRegistry, maxWait(Duration.ofSeconds(5)));
+        Card card = new Card("Hana", new BigDecimal("10.00"));
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        Future<Card> leader = executor.submit(() -> coalescer.load(cardId, () -> {
+            queries.incrementAndGet();
+            leaderStarted.countDown();
+            await(release);
+            return card;
+        }));
+        assertThat(leaderStarted.await(2, TimeUnit.SECONDS)).isTrue();
+
+        List<Future<Card>> followers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            followers.add(executor.submit(() -> coalescer.load(cardId, () -> {
+                queries.incrementAndGet();
+                return card;
+            })));
+        }
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThat(leader.get(2, TimeUnit.SECONDS)).isSameAs(card);
+        for (Future<Card> follower : followers) {
+            assertThat(follower.get(2, TimeUnit.SECONDS)).isSameAs(card);
+        }
+        executor.shutdownNow();
+
+        assertThat(queries.get()).isEqualTo(1);
+        assertThat(coalescer.coalescingRatio()).isEqualTo(7 / 8.0);
+    }
+
+    @Test
+    void finishedQueriesAreNotReused() {
+        CardReadCoalescer coalescer = new CardReadCoalescer(meterRegistry, maxWait(Duration.ofSeconds(5)));
+        AtomicInteger queries = new AtomicInteger();
+
+        coalescer.load(cardId, () -> { queries.incrementAndGet(); return new Card("A", BigDecimal.ONE); });
+        coalescer.load(cardId, () -> { queries.incrementAndGet(); return new Card("A", BigDecimal.ONE); });
+
+        assertThat(queries.get()).isEqualTo(2);
+    }
+
+    @Test
+    void followerQueriesItselfAfterMaxWait() throws Exception {
+        CardReadCoalescer coalescer = new CardReadCoalescer(meterRegistry, maxWait(Duration.ofMillis(50)));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> coalescer.load(cardId, () -> {
+            leaderStarted.countDown();
+            await(release);
+            return new Card("Slow", BigDecimal.ONE);
+        }));
+        assertThat(leaderStarted.await(2, TimeUnit.SECONDS)).isTrue();
+
+        Card own = coalescer.load(cardId, () -> new Card("Own", BigDecimal.ONE));
+
+        assertThat(own.getCardholderName()).isEqualTo("Own");
+        release.countDown();
+        executor.shutdownNow();
+        assertThat(meterRegistry.get("virtualcard.card.reads").tag("outcome", "wait_timeout").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void callersInsideATransactionNeverShareACard() throws Exception {
+        CardReadCoalescer coalescer = new CardReadCoalescer(meterRegistry, maxWait(Duration.ofSeconds(5)));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Card> leader = executor.submit(() -> coalescer.load(cardId, () -> {
+            leaderStarted.countDown();
+            await(release);
+            return new Card("Shared", BigDecimal.ONE);
+        }));
+        assertThat(leaderStarted.await(2, TimeUnit.SECONDS)).isTrue();
+
+        Card own;
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            own = coalescer.load(cardId, () -> new Card("Own", BigDecimal.ONE));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        assertThat(own.getCardholderName()).isEqualTo("Own");
+        release.countDown();
+        assertThat(leader.get(2, TimeUnit.SECONDS).getCardholderName()).isEqualTo("Shared");
+        executor.shutdownNow();
+        assertThat(coalescer.coalescingRatio()).isZero();
+    }
+
+    @Test
+    void leaderFailurePropagates() {
+        CardReadCoalescer coalescer = new CardReadCoalescer(meterRegistry, maxWait(Duration.ofSeconds(1)));
+
+        assertThrows(CardNotFoundException.class, () -> coalescer.load(cardId, () -> {
+            throw new CardNotFoundException();
+        }));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static CoalescingProperties maxWait(Duration maxWait) {
+        CoalescingProperties properties = new CoalescingProperties();
+        properties.setMaxWait(maxWait);
+        return properties;
+    }
+}
@@ -1,23 +1,31 @@
 package com.example.virtualCard.services;
 
+import com.example.virtualCard.dto.CardOperationResult;
 import com.example.virtualCard.entity.Card;
 import com.example.virtualCard.entity.Transaction;
 import com.example.virtualCard.enums.TransactionStatus;
 import com.example.virtualCard.enums.TransactionType;
-import com.example.virtualCard.exception.InsufficientBalanceException;
 import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
 import com.example.virtualCard.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.*;
 
+import static com.example.virtualCard.dto.CardOperationResults.isSuccessful;
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest
@@ -32,16 +40,29 @@ class CardServiceIntegrationTest {
     @Autowired
     private TransactionRepository transactionRepository;
 
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private IdempotencyKeyPurger idempotencyKeyPurger;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
     @BeforeEach
     @AfterEach
     void cleanDb() {
+        idempotencyRecordRepository.deleteAll();
         transactionRepository.deleteAll();
         cardRepository.deleteAll();
     }
 
     @Test
     void concurrencyTestStrongSpendContention() throws Exception {
-        Card card = cardService.createCard("Bob", new BigDecimal("100.00"), "create-strong-1");
+        Card card = orThrow(cardService.createCard("Bob", new BigDecimal("100.00"), "create-strong-1"));
         UUID cardId = card.getId();
 
         int threads = 20;
@@ -87,15 +108,110 @@ class CardServiceIntegrationTest {
         assertThat(current.getBalance()).isGreaterThanOrEqualTo(BigDecimal.ZERO);
     }
 
+    @Test
+    void concurrentRetriesOfOneSpendApplyOnce() throws Exception {
+        UUID cardId = orThrow(cardService.createCard("Ann", new BigDecimal("100.00"), "create-retry-1")).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CardOperationResult>> futures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cardService.spend(cardId, new BigDecimal("15.00"), "spend-retry-1");
+            }));
+        }
+        start.countDown();
+        for (Future<CardOperationResult> future : futures) {
+            assertThat(future.get(10, TimeUnit.SECONDS).outcome())
+                    .isIn(CardOperationResult.Outcome.SUCCESS, CardOperationResult.Outcome.REPLAYED);
+        }
+        executor.shutdownNow();
+
+        assertThat(cardService.getCard(cardId).getBalance()).isEqualByComparingTo("85.00");
+        assertThat(transactionRepository.findByCard_Id(cardId))
+                .filteredOn(tx -> tx.getType() == TransactionType.SPEND)
+                .hasSize(1);
+    }
+
+    @Test
+    void concurrentDuplicateIssuanceCreatesOneCard() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CardOperationResult>> futures = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cardService.createCard("Dee", new BigDecimal("40.00"), "create-race-1");
+            }));
+        }
+        start.countDown();
+        Set<UUID> issued = new HashSet<>();
+        for (Future<CardOperationResult> future : futures) {
+            CardOperationResult result = future.get(10, TimeUnit.SECONDS);
+            if (result.outcome() != CardOperationResult.Outcome.IN_PROGRESS) {
+                issued.add(orThrow(result).getId());
+            }
+        }
+        executor.shutdownNow();
+
+        assertThat(issued).hasSize(1);
+        assertThat(cardRepository.count()).isEqualTo(1);
+        assertThat(transactionRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void sameKeyOnDifferentCardsDoesNotCollide() {
+        UUID first = orThrow(cardService.createCard("Ann", new BigDecimal("50.00"), "create-scope-1")).getId();
+        UUID second = orThrow(cardService.createCard("Ben", new BigDecimal("50.00"), "create-scope-2")).getId();
+
+        assertThat(cardService.spend(first, new BigDecimal("10.00"), "shared-key").outcome())
+                .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+        assertThat(cardService.spend(second, new BigDecimal("20.00"), "shared-key").outcome())
+                .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+        assertThat(cardService.topup(first, new BigDecimal("10.00"), "shared-key").outcome())
+                .isEqualTo(CardOperationResult.Outcome.CONFLICT);
+    }
+
+    @Test
+    void expiredKeyCanBeClaimedAgain() {
+        UUID cardId = orThrow(cardService.createCard("Cal", new BigDecimal("50.00"), "create-expiry-1")).getId();
+        cardService.spend(cardId, new BigDecimal("10.00"), "spend-expiry-1");
+        assertThat(cardService.spend(cardId, new BigDecimal("10.00"), "spend-expiry-1").outcome())
+                .isEqualTo(CardOperationResult.Outcome.REPLAYED);
+
+        transactionTemplate.executeWithoutResult(tx -> entityManager
+                .createQuery("update IdempotencyRecord r set r.expiresAt = :past")
+                .setParameter("past", LocalDateTime.now().minusMinutes(1))
+                .executeUpdate());
+
+        assertThat(cardService.spend(cardId, new BigDecimal("10.00"), "spend-expiry-1").outcome())
+                .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+        assertThat(cardService.getCard(cardId).getBalance()).isEqualByComparingTo("30.00");
+    }
+
+    @Test
+    void expiredKeysArePurgedWithArchivingOff() {
+        UUID cardId = orThrow(cardService.createCard("Dee", new BigDecimal("50.00"), "create-purge-1")).getId();
+        cardService.spend(cardId, new BigDecimal("10.00"), "spend-purge-1");
+        cardService.spend(cardId, new BigDecimal("10.00"), "spend-purge-2");
+
+        transactionTemplate.executeWithoutResult(tx -> entityManager
+                .createQuery("update IdempotencyRecord r set r.expiresAt = :past where r.transactionId in "
+                        + "(select t.id from Transaction t where t.idempotencyKey = 'spend-purge-1')")
+                .setParameter("past", LocalDateTime.now().minusMinutes(1))
+                .executeUpdate());
+
+        assertThat(idempotencyKeyPurger.purge()).isEqualTo(1);
+        assertThat(idempotencyRecordRepository.count()).isEqualTo(2);
+        assertThat(cardService.spend(cardId, new BigDecimal("10.00"), "spend-purge-2").outcome())
+                .isEqualTo(CardOperationResult.Outcome.REPLAYED);
+    }
+
     private boolean runSpend(UUID cardId, BigDecimal amount, String key, CountDownLatch ready, CountDownLatch start)
             throws InterruptedException {
         ready.countDown();
         start.await();
-        try {
-            cardService.spend(cardId, amount, key);
-            return true;
-        } catch (InsufficientBalanceException ex) {
-            return false;
-        }
+        return isSuccessful(cardService.spend(cardId, amount, key));
     }
 }
@@ -0,0 +1,231 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.TransferProperties;
+import com.example.virtualCard.dto.CardSummaryResponse;
+import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.entity.CardSummary;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.CardSummaryRepository;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CardSummaryIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private PooledCreditSettler pooledCreditSettler;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardSummaryRepository cardSummaryRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private CardSummaryTracker cardSummaryTracker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDb() {
+        transferProperties.getPooledCards().clear();
+        idempotencyRecordRepository.deleteAll();
+        transactionRepository.deleteAll();
+        cardSummaryRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void summaryAndRunningBalancesFollowEachOperation() {
+        UUID cardId = orThrow(cardService.createCard("Ann", new BigDecimal("100.00"), "summary-create-1")).getId();
+        UUID otherId = orThrow(cardService.createCard("Ben", BigDecimal.ZERO, "summary-create-2")).getId();
+
+        cardService.topup(cardId, new BigDecimal("50.00"), "summary-topup");
+        cardService.spend(cardId, new BigDecimal("30.00"), "summary-spend");
+        cardService.spend(cardId, new BigDecimal("500.00"), "summary-declined");
+        cardService.transfer(cardId, otherId, new BigDecimal("20.00"), "summary-transfer");
+        cardService.spend(cardId, new BigDecimal("30.00"), "summary-spend");
+
+        CardSummaryResponse summary = transactionQueryService.getSummary(cardId);
+        assertThat(summary.balance()).isEqualByComparingTo("100.00");
+        assertThat(summary.totalToppedUp()).isEqualByComparingTo("50.00");
+        assertThat(summary.totalSpent()).isEqualByComparingTo("50.00");
+        assertThat(summary.declineCount()).isEqualTo(1);
+        assertThat(summary.lastActivityAt()).isNotNull();
+        assertThat(transactionQueryService.getSummary(otherId).totalToppedUp()).isEqualByComparingTo("20.00");
+
+        Map<String, BigDecimal> balances = balancesByKey(cardId);
+        assertThat(balances.get("summary-create-1")).isEqualByComparingTo("100.00");
+        assertThat(balances.get("summary-topup")).isEqualByComparingTo("150.00");
+        assertThat(balances.get("summary-spend")).isEqualByComparingTo("120.00");
+        assertThat(balances.get("summary-declined")).isEqualByComparingTo("120.00");
+        assertThat(balances.get("summary-transfer")).isEqualByComparingTo("100.00");
+        assertThat(balancesByKey(otherId).get("summary-transfer")).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    void pooledCreditsGetBalancesWhenSettled() {
+        UUID pool = orThrow(cardService.createCard("Pool", new BigDecimal("1.00"), "summary-create-3")).getId();
+        UUID payer = orThrow(cardService.createCard("Ann", new BigDecimal("30.00"), "summary-create-4")).getId();
+        transferProperties.getPooledCards().add(pool);
+
+        for (int i = 0; i < 3; i++) {
+            cardService.transfer(payer, pool, new BigDecimal("4.00"), "summary-pool-" + i);
+        }
+        assertThat(transactionQueryService.getTransactions(pool))
+                .filteredOn(tx -> tx.type() == TransactionType.TOPUP)
+                .extracting(TransactionResponse::balanceAfter)
+                .containsOnlyNulls();
+        assertThat(transactionQueryService.getSummary(pool).totalToppedUp()).isEqualByComparingTo("0.00");
+
+        pooledCreditSettler.settle();
+
+        assertThat(transactionQueryService.getTransactions(pool))
+                .filteredOn(tx -> tx.type() == TransactionType.TOPUP)
+                .extracting(TransactionResponse::balanceAfter)
+                .usingElementComparator(BigDecimal::compareTo)
+                .containsExactlyInAnyOrder(new BigDecimal("5.00"), new BigDecimal("9.00"), new BigDecimal("13.00"));
+        assertThat(transactionQueryService.getSummary(pool).totalToppedUp()).isEqualByComparingTo("12.00");
+        assertThat(transactionQueryService.getSummary(payer).totalSpent()).isEqualByComparingTo("12.00");
+    }
+
+    @Test
+    void cardWithoutSummaryRowIsSummarizedFromHistory() {
+        UUID cardId = orThrow(cardService.createCard("Ann", new BigDecimal("10.00"), "summary-create-5")).getId();
+        cardService.topup(cardId, new BigDecimal("5.00"), "summary-legacy-topup");
+        cardService.spend(cardId, new BigDecimal("3.00"), "summary-legacy-spend");
+        cardService.spend(cardId, new BigDecimal("99.00"), "summary-legacy-declined");
+        CardSummaryResponse maintained = transactionQueryService.getSummary(cardId);
+
+        cardSummaryRepository.deleteById(cardId);
+
+        CardSummaryResponse aggregated = transactionQueryService.getSummary(cardId);
+        assertThat(aggregated.balance()).isEqualByComparingTo("12.00");
+        assertThat(aggregated.totalToppedUp()).isEqualByComparingTo(maintained.totalToppedUp());
+        assertThat(aggregated.totalSpent()).isEqualByComparingTo(maintained.totalSpent());
+        assertThat(aggregated.declineCount()).isEqualTo(maintained.declineCount());
+        assertThat(aggregated.lastActivityAt()).isNotNull();
+    }
+
+    @Test
+    void firstWriteToLegacyCardBackfillsSummaryAndBalances() {
+        UUID cardId = orThrow(cardService.createCard("Ann", new BigDecimal("10.00"), "summary-create-7")).getId();
+        cardService.topup(cardId, new BigDecimal("5.00"), "summary-backfill-topup");
+        cardService.spend(cardId, new BigDecimal("99.00"), "summary-backfill-declined");
+        makeLegacy(cardId);
+
+        cardService.spend(cardId, new BigDecimal("3.00"), "summary-backfill-spend");
+
+        CardSummary summary = cardSummaryRepository.findById(cardId).orElseThrow();
+        assertThat(summary.getTotalToppedUp()).isEqualByComparingTo("5.00");
+        assertThat(summary.getTotalSpent()).isEqualByComparingTo("3.00");
+        assertThat(summary.getDeclineCount()).isEqualTo(1);
+        Map<String, BigDecimal> balances = balancesByKey(cardId);
+        assertThat(balances.get("summary-create-7")).isEqualByComparingTo("10.00");
+        assertThat(balances.get("summary-backfill-topup")).isEqualByComparingTo("15.00");
+        assertThat(balances.get("summary-backfill-declined")).isEqualByComparingTo("15.00");
+        assertThat(balances.get("summary-backfill-spend")).isEqualByComparingTo("12.00");
+
+        cardService.topup(cardId, new BigDecimal("1.00"), "summary-backfill-topup-2");
+        assertThat(cardSummaryRepository.findById(cardId).orElseThrow().getTotalToppedUp()).isEqualByComparingTo("6.00");
+    }
+
+    @Test
+    void idleLegacyCardsAreBackfilled() {
+        UUID cardId = orThrow(cardService.createCard("Ann", new BigDecimal("10.00"), "summary-create-8")).getId();
+        cardService.spend(cardId, new BigDecimal("4.00"), "summary-idle-spend");
+        makeLegacy(cardId);
+
+        assertThat(cardSummaryTracker.backfillMissing()).isEqualTo(1);
+        assertThat(cardSummaryTracker.backfillMissing()).isZero();
+
+        assertThat(cardSummaryRepository.findById(cardId).orElseThrow().getTotalSpent()).isEqualByComparingTo("4.00");
+        assertThat(balancesByKey(cardId).get("summary-idle-spend")).isEqualByComparingTo("6.00");
+    }
+
+    @Test
+    void concurrentTopupsAndSpendsKeepSummaryInLineWithBalance() throws Exception {
+        UUID cardId = orThrow(cardService.createCard("Ann", new BigDecimal("20.00"), "summary-create-6")).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String key = "summary-concurrent-" + i;
+            boolean topup = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                try {
+                    if (topup) {
+                        cardService.topup(cardId, new BigDecimal("2.00"), key);
+                    } else {
+                        cardService.spend(cardId, new BigDecimal("3.00"), key);
+                    }
+                } catch (RuntimeException ignored) {
+                    // optimistic top-up conflicts roll back their summary update with them
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        CardSummaryResponse summary = transactionQueryService.getSummary(cardId);
+        assertThat(new BigDecimal("20.00").add(summary.totalToppedUp()).subtract(summary.totalSpent()))
+                .isEqualByComparingTo(summary.balance());
+    }
+
+    // As a card issued before summaries and running balances were kept would look.
+    private void makeLegacy(UUID cardId) {
+        cardSummaryRepository.deleteById(cardId);
+        transactionTemplate.executeWithoutResult(tx -> entityManager
+                .createQuery("update Transaction t set t.balanceAfter = null where t.card.id = :cardId")
+                .setParameter("cardId", cardId)
+                .executeUpdate());
+    }
+
+    private Map<String, BigDecimal> balancesByKey(UUID cardId) {
+        return transactionQueryService.getTransactions(cardId).stream()
+                .collect(Collectors.toMap(TransactionResponse::idempotencyKey, TransactionResponse::balanceAfter));
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.TransferProperties;
+import com.example.virtualCard.dto.CardOperationResult;
+import com.example.virtualCard.entity.Transaction;
+import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class CardTransferIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private PooledCreditSettler pooledCreditSettler;
+
+    @Autowired
+    private TransferProperties transferProperties;
+
+    @Autowired
+    private CardLifecycleService cardLifecycleService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDb() {
+        transferProperties.getPooledCards().clear();
+        idempotencyRecordRepository.deleteAll();
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void transferWritesPairedLegsAndReplays() {
+        UUID source = orThrow(cardService.createCard("Ann", new BigDecimal("50.00"), "transfer-create-1")).getId();
+        UUID destination = orThrow(cardService.createCard("Ben", new BigDecimal("5.00"), "transfer-create-2")).getId();
+
+        assertThat(cardService.transfer(source, destination, new BigDecimal("20.00"), "transfer-1").outcome())
+                .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+        assertThat(cardService.transfer(source, destination, new BigDecimal("20.00"), "transfer-1").outcome())
+                .isEqualTo(CardOperationResult.Outcome.REPLAYED);
+
+        assertThat(cardService.getCard(source).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(cardService.getCard(destination).getBalance()).isEqualByComparingTo("25.00");
+        Transaction debit = legOf(source, TransactionType.SPEND);
+        Transaction credit = legOf(destination, TransactionType.TOPUP);
+        assertThat(debit.getCounterpartyCardId()).isEqualTo(destination);
+        assertThat(credit.getCounterpartyCardId()).isEqualTo(source);
+        assertThat(credit.getStatus()).isEqualTo(TransactionStatus.SUCCESS);
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    @Test
+    void keyReusedForAnotherDestinationConflicts() {
+        UUID source = orThrow(cardService.createCard("Ann", new BigDecimal("50.00"), "transfer-create-3")).getId();
+        UUID first = orThrow(cardService.createCard("Ben", BigDecimal.ZERO, "transfer-create-4")).getId();
+        UUID second = orThrow(cardService.createCard("Cal", BigDecimal.ZERO, "transfer-create-5")).getId();
+
+        cardService.transfer(source, first, new BigDecimal("10.00"), "transfer-2");
+
+        assertThat(cardService.transfer(source, second, new BigDecimal("10.00"), "transfer-2").outcome())
+                .isEqualTo(CardOperationResult.Outcome.CONFLICT);
+        assertThat(cardService.getCard(second).getBalance()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void insufficientBalanceDeclinesWithoutCredit() {
+        UUID source = orThrow(cardService.createCard("Ann", new BigDecimal("5.00"), "transfer-create-6")).getId();
+        UUID destination = orThrow(cardService.createCard("Ben", BigDecimal.ZERO, "transfer-create-7")).getId();
+
+        CardOperationResult result = cardService.transfer(source, destination, new BigDecimal("10.00"), "transfer-3");
+
+        assertThat(result.declineReason()).isEqualTo(DeclineReason.INSUFFICIENT_BALANCE);
+        assertThat(transactionRepository.findByCard_Id(destination))
+                .filteredOn(tx -> tx.getType() == TransactionType.TOPUP && tx.getCounterpartyCardId() != null)
+                .isEmpty();
+        assertThat(cardService.getCard(destination).getBalance()).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void transferToSameCardIsRejected() {
+        UUID cardId = orThrow(cardService.createCard("Ann", new BigDecimal("5.00"), "transfer-create-8")).getId();
+
+        assertThatThrownBy(() -> cardService.transfer(cardId, cardId, new BigDecimal("1.00"), "transfer-4"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentOpposingTransfersConserveFunds() throws Exception {
+        UUID a = orThrow(cardService.createCard("Ann", new BigDecimal("100.00"), "transfer-create-9")).getId();
+        UUID b = orThrow(cardService.createCard("Ben", new BigDecimal("100.00"), "transfer-create-10")).getId();
+
+        int transfers = 40;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CardOperationResult>> futures = new ArrayList<>();
+        for (int i = 0; i < transfers; i++) {
+            UUID from = i % 2 == 0 ? a : b;
+            UUID to = i % 2 == 0 ? b : a;
+            String key = "transfer-bidi-" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cardService.transfer(from, to, new BigDecimal("7.00"), key);
+            }));
+        }
+        start.countDown();
+        for (Future<CardOperationResult> future : futures) {
+            assertThat(future.get(20, TimeUnit.SECONDS).outcome()).isNotNull();
+        }
+        executor.shutdownNow();
+
+        BigDecimal total = cardService.getCard(a).getBalance().add(cardService.getCard(b).getBalance());
+        assertThat(total).isEqualByComparingTo("200.00");
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    @Test
+    void pooledDestinationIsCreditedBySettler() {
+        UUID pool = orThrow(cardService.createCard("Pool", BigDecimal.ZERO, "transfer-create-11")).getId();
+        UUID payer = orThrow(cardService.createCard("Ann", new BigDecimal("30.00"), "transfer-create-12")).getId();
+        transferProperties.getPooledCards().add(pool);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(cardService.transfer(payer, pool, new BigDecimal("4.00"), "transfer-pool-" + i).outcome())
+                    .isEqualTo(CardOperationResult.Outcome.SUCCESS);
+        }
+        assertThat(cardService.getCard(pool).getBalance()).isEqualByComparingTo("0.00");
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+
+        assertThat(pooledCreditSettler.settle()).isEqualTo(3);
+
+        assertThat(cardService.getCard(pool).getBalance()).isEqualByComparingTo("12.00");
+        assertThat(cardService.getCard(payer).getBalance()).isEqualByComparingTo("18.00");
+        assertThat(pooledCreditSettler.settle()).isZero();
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    @Test
+    void pendingCreditsIntoBlockedPoolAreRefunded() {
+        UUID pool = orThrow(cardService.createCard("Pool", BigDecimal.ZERO, "transfer-create-13")).getId();
+        UUID payer = orThrow(cardService.createCard("Ann", new BigDecimal("30.00"), "transfer-create-14")).getId();
+        UUID otherPayer = orThrow(cardService.createCard("Ben", new BigDecimal("10.00"), "transfer-create-15")).getId();
+        transferProperties.getPooledCards().add(pool);
+        cardService.transfer(payer, pool, new BigDecimal("4.00"), "transfer-refund-1");
+        cardService.transfer(payer, pool, new BigDecimal("6.00"), "transfer-refund-2");
+        cardService.transfer(otherPayer, pool, new BigDecimal("3.00"), "transfer-refund-3");
+
+        cardLifecycleService.changeStatus(List.of(pool), CardStatus.BLOCKED);
+
+        assertThat(pooledCreditSettler.settle()).isEqualTo(3);
+        assertThat(cardService.getCard(pool).getBalance()).isEqualByComparingTo("0.00");
+        assertThat(cardService.getCard(payer).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(cardService.getCard(otherPayer).getBalance()).isEqualByComparingTo("10.00");
+        assertThat(transactionRepository.findByCard_Id(pool)).filteredOn(tx -> tx.getType() == TransactionType.TOPUP)
+                .allMatch(tx -> tx.getStatus() == TransactionStatus.DECLINED
+                        && tx.getDeclineReason() == DeclineReason.CARD_NOT_ACTIVE);
+        assertThat(legOf(otherPayer, TransactionType.TOPUP).getCounterpartyCardId()).isEqualTo(pool);
+        assertThat(pooledCreditSettler.settle()).isZero();
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+        assertThat(cardService.transfer(payer, pool, new BigDecimal("4.00"), "transfer-refund-1").outcome())
+                .isEqualTo(CardOperationResult.Outcome.REPLAYED);
+    }
+
+    @Test
+    void blockedSourcesAreRefundedToo() {
+        UUID pool = orThrow(cardService.createCard("Pool", BigDecimal.ZERO, "transfer-create-16")).getId();
+        UUID payer = orThrow(cardService.createCard("Ann", new BigDecimal("30.00"), "transfer-create-17")).getId();
+        UUID otherPayer = orThrow(cardService.createCard("Ben", new BigDecimal("10.00"), "transfer-create-18")).getId();
+        transferProperties.getPooledCards().add(pool);
+        cardService.transfer(payer, pool, new BigDecimal("4.00"), "transfer-refund-4");
+        cardService.transfer(otherPayer, pool, new BigDecimal("3.00"), "transfer-refund-5");
+
+        cardLifecycleService.changeStatus(List.of(pool, payer), CardStatus.BLOCKED);
+
+        assertThat(pooledCreditSettler.settle()).isEqualTo(2);
+        assertThat(cardService.getCard(payer).getBalance()).isEqualByComparingTo("30.00");
+        assertThat(cardService.getCard(payer).getStatus()).isEqualTo(CardStatus.BLOCKED);
+        assertThat(cardService.getCard(otherPayer).getBalance()).isEqualByComparingTo("10.00");
+        assertThat(transactionRepository.findByCard_Id(pool))
+                .filteredOn(tx -> tx.getType() == TransactionType.TOPUP)
+                .extracting(Transaction::getStatus)
+                .containsOnly(TransactionStatus.DECLINED);
+        assertThat(pooledCreditSettler.settle()).isZero();
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    private Transaction legOf(UUID cardId, TransactionType type) {
+        return transactionRepository.findByCard_Id(cardId).stream()
+                .filter(tx -> tx.getType() == type && tx.getCounterpartyCardId() != null)
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -1,15 +1,27 @@
 package com.example.virtualCard.services;
 
+import com.example.virtualCard.config.ArchiveProperties;
+import com.example.virtualCard.config.CoalescingProperties;
+import com.example.virtualCard.config.IdempotencyProperties;
+import com.example.virtualCard.config.IssuanceProperties;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.config.ShardingProperties;
+import com.example.virtualCard.config.SpendLimitProperties;
+import com.example.virtualCard.config.TransferProperties;
+import com.example.virtualCard.dto.CardOperationResult;
 import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.entity.IdempotencyRecord;
 import com.example.virtualCard.entity.Transaction;
 import com.example.virtualCard.enums.CardStatus;
+import com.example.virtualCard.enums.DeclineReason;
 import com.example.virtualCard.enums.TransactionStatus;
 import com.example.virtualCard.enums.TransactionType;
 import com.example.virtualCard.exception.CardNotActiveException;
-import com.example.virtualCard.exception.IdempotencyConflictException;
-import com.example.virtualCard.exception.InsufficientBalanceException;
+import com.example.virtualCard.repository.ArchivedTransactionRepository;
 import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.IdempotencyRecordRepository;
 import com.example.virtualCard.repository.TransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,9 +30,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,9 +46,21 @@ class CardUnitTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private CardSummaryTracker cardSummaryTracker;
+
     @Mock
     private TransactionRepository transactionRepository;
 
+    @Mock
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private AuditLog auditLog;
+
     private CardService cardService;
     private IdempotencyService idempotencyService;
 
@@ -47,20 +73,30 @@ class CardUnitTest {
         card = new Card("Test", BigDecimal.valueOf(1000));
         card.setId(cardId);
         card.setStatus(CardStatus.ACTIVE);
-        idempotencyService = new IdempotencyService(cardRepository, transactionRepository);
-        cardService = new CardService(cardRepository, transactionRepository, idempotencyService);
+        CardReadCoalescer coalescer = new CardReadCoalescer(new SimpleMeterRegistry(), new CoalescingProperties());
+        idempotencyService = new IdempotencyService(cardRepository, transactionRepository,
+                archivedTransactionRepository, idempotencyRecordRepository, new ArchiveProperties(),
+                new IdempotencyProperties(), auditLog);
+        ShardRouter shardRouter = new ShardRouter(new ShardingProperties());
+        IssuanceProperties issuance = new IssuanceProperties();
+        issuance.setIdPoolSize(0);
+        cardService = new CardService(cardRepository, cardSummaryTracker, transactionRepository, idempotencyService, shardRouter,
+                new SpendVelocityTracker(new SpendLimitProperties(), transactionRepository, shardRouter), coalescer,
+                new TransferProperties(), new CardIdPool(shardRouter, issuance), auditLog);
     }
 
     @Test
     void spendSuccess() {
-        when(transactionRepository.findByIdempotencyKey("k1"))
+        when(idempotencyRecordRepository.findById(IdempotencyService.keyHash(cardId, "k1")))
                 .thenReturn(Optional.empty());
 
         when(cardRepository.findByIdForSpend(cardId))
                 .thenReturn(Optional.of(card));
 
-        when(transactionRepository.saveAndFlush(any()))
+        when(transactionRepository.save(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
+        when(idempotencyRecordRepository.claim(any(), any(), any()))
+                .thenReturn(1);
 
         cardService.spend(cardId, BigDecimal.valueOf(200), "k1");
 
@@ -70,22 +106,26 @@ class CardUnitTest {
 
     @Test
     void spendInsufficientBalance() {
-        when(transactionRepository.findByIdempotencyKey("k2"))
+        when(idempotencyRecordRepository.findById(IdempotencyService.keyHash(cardId, "k2")))
                 .thenReturn(Optional.empty());
 
         when(cardRepository.findByIdForSpend(cardId))
                 .thenReturn(Optional.of(card));
 
-        when(transactionRepository.saveAndFlush(any()))
+        when(transactionRepository.save(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
+        when(idempotencyRecordRepository.claim(any(), any(), any()))
+                .thenReturn(1);
+
+        CardOperationResult result = cardService.spend(cardId, BigDecimal.valueOf(1200), "k2");
 
-        assertThrows(InsufficientBalanceException.class,
-                () -> cardService.spend(cardId, BigDecimal.valueOf(1200), "k2"));
+        assertThat(result.outcome()).isEqualTo(CardOperationResult.Outcome.DECLINED);
+        assertThat(result.declineReason()).isEqualTo(DeclineReason.INSUFFICIENT_BALANCE);
 
         assertThat(BigDecimal.valueOf(1000)).isEqualTo(card.getBalance());
 
         ArgumentCaptor<Transaction> txCaptor = ArgumentCaptor.forClass(Transaction.class);
-        verify(transactionRepository).save(txCaptor.capture());
+        verify(transactionRepository, times(2)).save(txCaptor.capture());
 
         assertThat(TransactionStatus.DECLINED).isEqualTo(txCaptor.getValue().getStatus());
     }
@@ -93,7 +133,7 @@ class CardUnitTest {
     void spendShouldFailWhenCardInactive() {
         card.setStatus(CardStatus.BLOCKED);
 
-        when(transactionRepository.findByIdempotencyKey("k3"))
+        when(idempotencyRecordRepository.findById(IdempotencyService.keyHash(cardId, "k3")))
                 .thenReturn(Optional.empty());
 
         when(cardRepository.findByIdForSpend(cardId))
@@ -102,7 +142,7 @@ class CardUnitTest {
         assertThrows(CardNotActiveException.class,
                 () -> cardService.spend(cardId, BigDecimal.valueOf(10), "k3"));
 
-        verify(transactionRepository, never()).saveAndFlush(any());
+        verify(transactionRepository, never()).save(any());
     }
     @Test
     void idempotencyReplaySuccessCase() {
@@ -115,13 +155,12 @@ class CardUnitTest {
                 "k4"
         );
 
-        when(transactionRepository.findByIdempotencyKey("k4"))
-                .thenReturn(Optional.of(existing));
+        givenRecord(cardId, "k4", existing);
 
         when(cardRepository.findById(cardId))
                 .thenReturn(Optional.of(card));
 
-        Card replay = cardService.spend(cardId, BigDecimal.valueOf(20), "k4");
+        Card replay = orThrow(cardService.spend(cardId, BigDecimal.valueOf(20), "k4"));
 
 
         assertThat(BigDecimal.valueOf(80)).isEqualTo(replay.getBalance());
@@ -139,27 +178,28 @@ class CardUnitTest {
                 "k5"
         );
 
-        when(transactionRepository.findByIdempotencyKey("k5"))
-                .thenReturn(Optional.of(existing));
+        givenRecord(cardId, "k5", existing);
 
-        assertThrows(IdempotencyConflictException.class,
-                () -> cardService.spend(cardId, BigDecimal.valueOf(25), "k5"));
+        assertThat(cardService.spend(cardId, BigDecimal.valueOf(25), "k5").outcome())
+                .isEqualTo(CardOperationResult.Outcome.CONFLICT);
     }
 
     @Test
     void topupSuccess() {
         card = cardWithBalance(new BigDecimal("100"));
 
-        when(transactionRepository.findByIdempotencyKey("t1"))
+        when(idempotencyRecordRepository.findById(IdempotencyService.keyHash(cardId, "t1")))
                 .thenReturn(Optional.empty());
 
         when(cardRepository.findByIdForTopup(cardId))
                 .thenReturn(Optional.of(card));
 
-        when(transactionRepository.saveAndFlush(any()))
+        when(transactionRepository.save(any()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
+        when(idempotencyRecordRepository.claim(any(), any(), any()))
+                .thenReturn(1);
 
-        Card updated = cardService.topup(cardId, BigDecimal.valueOf(40), "t1");
+        Card updated = orThrow(cardService.topup(cardId, BigDecimal.valueOf(40), "t1"));
 
 
         assertThat(BigDecimal.valueOf(140)).isEqualTo(updated.getBalance());
@@ -179,19 +219,40 @@ class CardUnitTest {
 
         card.setCardholderName("Alice");
 
-        when(transactionRepository.findByIdempotencyKey("c1"))
-                .thenReturn(Optional.of(existing));
+        givenRecord(null, "c1", existing);
 
         when(cardRepository.findById(cardId))
                 .thenReturn(Optional.of(card));
 
-        Card replay = cardService.createCard("Alice", BigDecimal.valueOf(200), "c1");
+        Card replay = orThrow(cardService.createCard("Alice", BigDecimal.valueOf(200), "c1"));
 
         assertThat(BigDecimal.valueOf(200)).isEqualTo(replay.getBalance());
-        verify(transactionRepository, never()).saveAndFlush(any());
+        verify(transactionRepository, never()).save(any());
         verify(cardRepository, never()).save(any());
     }
 
+    @Test
+    void createReplayWithAnotherNameIsNotAudited() {
+        card = cardWithBalance(new BigDecimal("200"));
+        card.setCardholderName("Alice");
+        givenRecord(null, "c2", new Transaction(card, TransactionType.ISSUANCE, BigDecimal.valueOf(200),
+                TransactionStatus.SUCCESS, "c2"));
+        when(cardRepository.findById(cardId)).thenReturn(Optional.of(card));
+
+        assertThat(cardService.createCard("Bob", BigDecimal.valueOf(200), "c2").outcome())
+                .isEqualTo(CardOperationResult.Outcome.CONFLICT);
+        verify(auditLog, never()).record(any());
+    }
+
+    private void givenRecord(UUID scope, String key, Transaction existing) {
+        UUID transactionId = UUID.randomUUID();
+        UUID keyHash = IdempotencyService.keyHash(scope, key);
+        when(idempotencyRecordRepository.findById(keyHash))
+                .thenReturn(Optional.of(new IdempotencyRecord(keyHash, transactionId, LocalDateTime.now().plusDays(1))));
+        when(transactionRepository.findById(transactionId))
+                .thenReturn(Optional.of(existing));
+    }
+
     private Card cardWithBalance(BigDecimal balance) {
         Card value = new Card("Test", balance);
         value.setId(cardId);
@@ -0,0 +1,127 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ShardContext;
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.exception.CrossShardTransferException;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "virtualcard.sharding.enabled=true",
+        "virtualcard.sharding.initialize-schema=true",
+        "virtualcard.sharding.shards[0].url=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "virtualcard.sharding.shards[0].username=sa",
+        "virtualcard.sharding.shards[1].url=jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "virtualcard.sharding.shards[1].username=sa",
+        "virtualcard.sharding.shards[2].url=jdbc:h2:mem:shard2;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+        "virtualcard.sharding.shards[2].username=sa"
+})
+class ShardedCardServiceIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @AfterEach
+    void cleanShards() {
+        shardRouter.fanOut(() -> {
+            transactionRepository.deleteAll();
+            cardRepository.deleteAll();
+            return null;
+        });
+    }
+
+    @Test
+    void cardsAndTheirTransactionsStayOnOneShard() {
+        List<Card> cards = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Card card = orThrow(cardService.createCard("holder-" + i, new BigDecimal("50.00"), "shard-create-" + i));
+            cardService.topup(card.getId(), new BigDecimal("10.00"), "shard-topup-" + i);
+            cardService.spend(card.getId(), new BigDecimal("25.00"), "shard-spend-" + i);
+            cards.add(card);
+        }
+
+        Set<Integer> usedShards = cards.stream().map(card -> shardRouter.shardOf(card.getId())).collect(Collectors.toSet());
+        assertThat(usedShards).hasSizeGreaterThan(1);
+
+        for (Card card : cards) {
+            int home = shardRouter.shardOf(card.getId());
+            for (int shard = 0; shard < shardRouter.shardCount(); shard++) {
+                try (ShardContext.Scope ignored = ShardContext.bind(shard)) {
+                    assertThat(cardRepository.existsById(card.getId())).isEqualTo(shard == home);
+                    assertThat(transactionRepository.findByCard_Id(card.getId())).hasSize(shard == home ? 3 : 0);
+                }
+            }
+            assertThat(cardService.getCard(card.getId()).getBalance()).isEqualByComparingTo("35.00");
+            assertThat(transactionQueryService.getTransactions(card.getId())).hasSize(3);
+        }
+    }
+
+    @Test
+    void issuanceReplayResolvesOnTheKeyShard() {
+        Card first = orThrow(cardService.createCard("Carol", new BigDecimal("20.00"), "shard-replay-1"));
+        Card replay = orThrow(cardService.createCard("Carol", new BigDecimal("20.00"), "shard-replay-1"));
+
+        assertThat(replay.getId()).isEqualTo(first.getId());
+        assertThat(shardRouter.shardOf(first.getId())).isEqualTo(shardRouter.shardOfKey("shard-replay-1"));
+    }
+
+    @Test
+    void reconciliationFansOutAcrossShards() {
+        for (int i = 0; i < 6; i++) {
+            Card card = orThrow(cardService.createCard("holder-" + i, new BigDecimal("30.00"), "recon-create-" + i));
+            cardService.spend(card.getId(), new BigDecimal("5.00"), "recon-spend-" + i);
+        }
+
+        assertThat(shardRouter.fanOut(() -> cardRepository.count()).stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(6);
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    @Test
+    void crossShardTransfersAreRejected() {
+        Card source = orThrow(cardService.createCard("Dan", new BigDecimal("40.00"), "xshard-create-0"));
+        Card destination = null;
+        for (int i = 1; destination == null; i++) {
+            Card candidate = orThrow(cardService.createCard("Eve", BigDecimal.ZERO, "xshard-create-" + i));
+            if (shardRouter.shardOf(candidate.getId()) != shardRouter.shardOf(source.getId())) {
+                destination = candidate;
+            }
+        }
+        UUID destinationId = destination.getId();
+
+        assertThatThrownBy(() -> cardService.transfer(source.getId(), destinationId, new BigDecimal("5.00"), "xshard-transfer"))
+                .isInstanceOf(CrossShardTransferException.class);
+        assertThat(cardService.getCard(source.getId()).getBalance()).isEqualByComparingTo("40.00");
+    }
+}
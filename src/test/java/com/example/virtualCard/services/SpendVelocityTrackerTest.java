@@ -0,0 +1,127 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.config.ShardRouter;
+import com.example.virtualCard.config.ShardingProperties;
+import com.example.virtualCard.config.SpendLimitProperties;
+import com.example.virtualCard.dto.SpendSample;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SpendVelocityTrackerTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private SpendVelocityTracker tracker;
+    private final UUID cardId = UUID.randomUUID();
+
+    @BeforeEach
+    void setup() {
+        SpendLimitProperties properties = new SpendLimitProperties();
+        properties.setEnabled(true);
+        properties.setPerMinuteAmount(new BigDecimal("100.00"));
+        properties.setPerMinuteCount(3);
+        properties.setDailyAmount(new BigDecimal("250.00"));
+        tracker = new SpendVelocityTracker(properties, transactionRepository, new ShardRouter(new ShardingProperties()));
+    }
+
+    @Test
+    void perMinuteAmountLimitSlidesOut() {
+        long now = 1_000_000_000L;
+
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("60.00"), now).acquired()).isTrue();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("50.00"), now + 1_000).acquired()).isFalse();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("40.00"), now + 1_000).acquired()).isTrue();
+
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("50.00"), now + 61_000).acquired()).isTrue();
+    }
+
+    @Test
+    void perMinuteCountLimit() {
+        long now = 2_000_000_000L;
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(tracker.tryAcquire(cardId, new BigDecimal("1.00"), now + i).acquired()).isTrue();
+        }
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("1.00"), now + 10).acquired()).isFalse();
+    }
+
+    @Test
+    void dailyLimitAcrossMinutes() {
+        long now = 3_000_000_000L;
+
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("100.00"), now).acquired()).isTrue();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("100.00"), now + 120_000).acquired()).isTrue();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("100.00"), now + 240_000).acquired()).isFalse();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("100.00"), now + 86_400_000L + 1_800_000).acquired()).isTrue();
+    }
+
+    @Test
+    void releaseFreesCapacity() {
+        long now = 4_000_000_000L;
+
+        SpendVelocityTracker.Reservation reservation = tracker.tryAcquire(cardId, new BigDecimal("90.00"), now);
+        assertThat(reservation.acquired()).isTrue();
+        tracker.release(cardId, new BigDecimal("90.00"), reservation);
+
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("90.00"), now + 1).acquired()).isTrue();
+    }
+
+    @Test
+    void releaseLeavesNoCreditOnceTheReservationAgesOut() {
+        long now = 4_000_000_000L;
+        SpendVelocityTracker.Reservation reservation = tracker.tryAcquire(cardId, new BigDecimal("90.00"), now);
+
+        tracker.release(cardId, new BigDecimal("90.00"), reservation);
+
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("100.00"), now + 61_000).acquired()).isTrue();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("1.00"), now + 61_000).acquired()).isFalse();
+    }
+
+    @Test
+    void rollbackAfterReleaseDoesNotUndoTheSpendTwice() {
+        long now = 5_000_000_000L;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            SpendVelocityTracker.Reservation reservation = tracker.tryAcquire(cardId, new BigDecimal("90.00"), now);
+            tracker.release(cardId, new BigDecimal("90.00"), reservation);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("100.00"), now + 1).acquired()).isTrue();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("1.00"), now + 2).acquired()).isFalse();
+    }
+
+    @Test
+    void rebuildsFromRecentSpends() {
+        when(transactionRepository.findSpendSamplesSince(eq(TransactionType.SPEND), eq(TransactionStatus.SUCCESS), any()))
+                .thenReturn(List.of(new SpendSample(cardId, new BigDecimal("240.00"), LocalDateTime.now().minusMinutes(10))));
+
+        tracker.afterSingletonsInstantiated();
+
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("20.00")).acquired()).isFalse();
+        assertThat(tracker.tryAcquire(cardId, new BigDecimal("10.00")).acquired()).isTrue();
+    }
+}
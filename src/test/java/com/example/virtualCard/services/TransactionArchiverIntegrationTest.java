@@ -0,0 +1,125 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.DeclineReason;
+import com.example.virtualCard.repository.ArchivedTransactionRepository;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {"virtualcard.archive.batch-size=2", "virtualcard.archive.retention=P30D"})
+class TransactionArchiverIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionArchiver transactionArchiver;
+
+    @Autowired
+    private TransactionQueryService transactionQueryService;
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private ArchivedTransactionRepository archivedTransactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDb() {
+        archivedTransactionRepository.deleteAll();
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void movesOldFinalizedTransactionsAndMergesHistory() {
+        Card card = orThrow(cardService.createCard("Finn", new BigDecimal("100.00"), "archive-create"));
+        cardService.topup(card.getId(), new BigDecimal("20.00"), "archive-topup");
+        cardService.spend(card.getId(), new BigDecimal("30.00"), "archive-spend");
+        assertThat(cardService.spend(card.getId(), new BigDecimal("500.00"), "archive-decline").declineReason())
+                .isEqualTo(DeclineReason.INSUFFICIENT_BALANCE);
+        ageAllTransactions(card.getId(), 31);
+        cardService.spend(card.getId(), new BigDecimal("10.00"), "archive-recent");
+
+        int archived = transactionArchiver.archive();
+
+        assertThat(archived).isEqualTo(4);
+        assertThat(transactionRepository.findByCard_Id(card.getId())).hasSize(1);
+        List<TransactionResponse> history = transactionQueryService.getTransactions(card.getId());
+        assertThat(history).hasSize(5);
+        assertThat(history.get(history.size() - 1).idempotencyKey()).isEqualTo("archive-recent");
+        assertThat(history).filteredOn(tx -> tx.status() == TransactionStatus.DECLINED).hasSize(1);
+        assertThat(reconciliationService.findLedgerMismatches()).isEmpty();
+    }
+
+    @Test
+    void historyInterleavesHotRowsOlderThanArchivedOnes() {
+        Card card = orThrow(cardService.createCard("Hal", new BigDecimal("100.00"), "archive-order-create"));
+        cardService.spend(card.getId(), new BigDecimal("10.00"), "archive-order-spend");
+        ageAllTransactions(card.getId(), 31);
+        transactionArchiver.archive();
+        cardService.topup(card.getId(), new BigDecimal("5.00"), "archive-order-topup");
+        ageAllTransactions(card.getId(), 45);
+        cardService.spend(card.getId(), new BigDecimal("1.00"), "archive-order-recent");
+
+        List<TransactionResponse> history = transactionQueryService.getTransactions(card.getId());
+
+        assertThat(history).extracting(TransactionResponse::createdAt).isSorted();
+        assertThat(history).extracting(TransactionResponse::idempotencyKey)
+                .startsWith("archive-order-topup")
+                .endsWith("archive-order-recent")
+                .hasSize(4);
+    }
+
+    @Test
+    void archivedKeysStillReplay() {
+        Card card = orThrow(cardService.createCard("Gus", new BigDecimal("50.00"), "archive-replay-create"));
+        cardService.spend(card.getId(), new BigDecimal("5.00"), "archive-replay-spend");
+        ageAllTransactions(card.getId(), 40);
+        transactionArchiver.archive();
+
+        Card replay = orThrow(cardService.spend(card.getId(), new BigDecimal("5.00"), "archive-replay-spend"));
+
+        assertThat(replay.getBalance()).isEqualByComparingTo("45.00");
+        assertThat(transactionRepository.findByCard_Id(card.getId())).isEmpty();
+    }
+
+    private void ageAllTransactions(UUID cardId, int days) {
+        transactionTemplate.executeWithoutResult(tx -> entityManager
+                .createQuery("update Transaction t set t.createdAt = :createdAt where t.card.id = :cardId")
+                .setParameter("createdAt", LocalDateTime.now().minusDays(days))
+                .setParameter("cardId", cardId)
+                .executeUpdate());
+    }
+}
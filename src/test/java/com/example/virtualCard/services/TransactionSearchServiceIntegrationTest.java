@@ -0,0 +1,174 @@
+package com.example.virtualCard.services;
+
+import com.example.virtualCard.dto.TransactionResponse;
+import com.example.virtualCard.dto.TransactionSearchCriteria;
+import com.example.virtualCard.dto.TransactionSearchPage;
+import com.example.virtualCard.entity.Card;
+import com.example.virtualCard.enums.TransactionStatus;
+import com.example.virtualCard.enums.TransactionType;
+import com.example.virtualCard.dto.CardOperationResult;
+import com.example.virtualCard.exception.UnindexedSearchException;
+import com.example.virtualCard.repository.CardRepository;
+import com.example.virtualCard.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.example.virtualCard.dto.CardOperationResults.orThrow;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = "virtualcard.search.max-page-size=3")
+class TransactionSearchServiceIntegrationTest {
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private TransactionSearchService transactionSearchService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDb() {
+        transactionRepository.deleteAll();
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    void pagesDeclinedSpendsAcrossCardsByKeyset() {
+        createDeclines(4);
+
+        TransactionSearchCriteria criteria = declinedInLastHour(Set.of());
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionSearchPage page = transactionSearchService.search(criteria, cursor, 2);
+            page.items().forEach(item -> seen.add(item.id()));
+            assertThat(page.items()).allMatch(item -> item.status() == TransactionStatus.DECLINED);
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(8).doesNotHaveDuplicates();
+        assertThat(pages).isEqualTo(4);
+    }
+
+    @Test
+    void keysetFollowsTheDatabaseUuidOrderWithinOneTimestamp() {
+        UUID cardId = orThrow(cardService.createCard("holder", new BigDecimal("10.00"), "search-create-uuid")).getId();
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(1).withNano(0);
+        List<UUID> ids = List.of(
+                UUID.fromString("00000000-0000-0000-0000-000000000001"),
+                UUID.fromString("7fffffff-ffff-ffff-ffff-ffffffffffff"),
+                UUID.fromString("80000000-0000-0000-0000-000000000000"),
+                UUID.fromString("ffffffff-ffff-ffff-ffff-ffffffffffff"));
+        for (UUID id : ids) {
+            jdbcTemplate.update("""
+                    insert into transactions (id, card_id, amount, type, idempotency_key, status, created_at)
+                    values (?, ?, 1.00, 'SPEND', ?, 'DECLINED', ?)
+                    """, id, cardId, "search-uuid-" + id, createdAt);
+        }
+
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionSearchPage page = transactionSearchService.search(declinedInLastHour(Set.of(cardId)), cursor, 1);
+            page.items().forEach(item -> seen.add(item.id()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    void filtersByCardAndAmount() {
+        List<UUID> cards = createDeclines(3);
+
+        TransactionSearchCriteria criteria = new TransactionSearchCriteria(
+                Set.of(TransactionType.SPEND), Set.of(), new BigDecimal("60.00"), null,
+                LocalDateTime.now().minusHours(1), null, Set.of(cards.get(1)));
+
+        List<TransactionResponse> items = transactionSearchService.search(criteria, null, null).items();
+
+        assertThat(items).hasSize(1);
+        assertThat(items.get(0).cardId()).isEqualTo(cards.get(1));
+        assertThat(items.get(0).amount()).isEqualByComparingTo("75.00");
+    }
+
+    @Test
+    void streamsAllMatchesAsNdjson() throws Exception {
+        createDeclines(4);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        transactionSearchService.stream(declinedInLastHour(Set.of()), out);
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertThat(body.lines()).hasSize(8).allMatch(line -> line.contains("\"DECLINED\""));
+    }
+
+    @Test
+    void rejectsSearchesNoIndexCanServe() {
+        TransactionSearchCriteria typeOnly = new TransactionSearchCriteria(
+                Set.of(TransactionType.SPEND), Set.of(), null, null, LocalDateTime.now().minusHours(1), null, Set.of());
+        TransactionSearchCriteria unbounded = new TransactionSearchCriteria(
+                Set.of(), Set.of(TransactionStatus.PENDING), null, null, null, LocalDateTime.now().minusMinutes(5), Set.of());
+        TransactionSearchCriteria tooWide = new TransactionSearchCriteria(
+                Set.of(), Set.of(TransactionStatus.PENDING), null, null, LocalDateTime.now().minusDays(30), null, Set.of());
+
+        assertThrows(UnindexedSearchException.class, () -> transactionSearchService.search(typeOnly, null, null));
+        assertThrows(UnindexedSearchException.class, () -> transactionSearchService.search(unbounded, null, null));
+        assertThrows(UnindexedSearchException.class, () -> transactionSearchService.search(tooWide, null, null));
+    }
+
+    @Test
+    void rejectsWindowsThatEndBeforeTheyStart() {
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+        TransactionSearchCriteria inverted = new TransactionSearchCriteria(
+                Set.of(), Set.of(TransactionStatus.DECLINED), null, null, from, from.minusMinutes(1), Set.of());
+
+        assertThrows(IllegalArgumentException.class, () -> transactionSearchService.search(inverted, null, null));
+    }
+
+    private TransactionSearchCriteria declinedInLastHour(Set<UUID> cardIds) {
+        return new TransactionSearchCriteria(Set.of(), Set.of(TransactionStatus.DECLINED), null, null,
+                LocalDateTime.now().minusHours(1), null, cardIds);
+    }
+
+    private List<UUID> createDeclines(int cards) {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < cards; i++) {
+            Card card = orThrow(cardService.createCard("holder-" + i, new BigDecimal("10.00"), "search-create-" + i));
+            cardService.spend(card.getId(), new BigDecimal("5.00"), "search-ok-" + i);
+            declineQuietly(card.getId(), new BigDecimal("50.00"), "search-decline-a-" + i);
+            declineQuietly(card.getId(), new BigDecimal("75.00"), "search-decline-b-" + i);
+            ids.add(card.getId());
+        }
+        return ids;
+    }
+
+    private void declineQuietly(UUID cardId, BigDecimal amount, String key) {
+        assertThat(cardService.spend(cardId, amount, key).outcome()).isEqualTo(CardOperationResult.Outcome.DECLINED);
+    }
+}